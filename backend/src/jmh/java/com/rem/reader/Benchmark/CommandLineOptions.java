@@ -0,0 +1,82 @@
+package com.rem.reader.Benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Minimal parser for the --name value options of the benchmark tools.
+ */
+public final class CommandLineOptions {
+
+    private final Map<String, String> values = new HashMap<>();
+
+    /**
+     * Parses arguments of the form --name value or --name=value.
+     *
+     * @param args The command-line arguments.
+     * @throws IllegalArgumentException If an argument is not an option or has no value.
+     */
+    public CommandLineOptions(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (!arg.startsWith("--"))
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+
+            int equals = arg.indexOf('=');
+            if (equals > 0) {
+                values.put(arg.substring(2, equals), arg.substring(equals + 1));
+            } else if (i + 1 < args.length) {
+                values.put(arg.substring(2), args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for " + arg);
+            }
+        }
+    }
+
+    // Public methods
+
+    /**
+     * Returns a string option.
+     *
+     * @param name         The option name, without dashes.
+     * @param defaultValue The value to use if the option is absent.
+     * @return The option value.
+     */
+    public String get(String name, String defaultValue) {
+        return values.getOrDefault(name, defaultValue);
+    }
+
+    /**
+     * Returns a non-negative integer option.
+     *
+     * @param name         The option name, without dashes.
+     * @param defaultValue The value to use if the option is absent.
+     * @return The option value.
+     * @throws IllegalArgumentException If the value is not a non-negative integer.
+     */
+    public int getInt(String name, int defaultValue) {
+        String value = values.get(name);
+        if (value == null)
+            return defaultValue;
+        try {
+            int parsed = Integer.parseInt(value);
+            if (parsed < 0)
+                throw new IllegalArgumentException("--" + name + " must not be negative");
+            return parsed;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--" + name + " must be a number: " + value);
+        }
+    }
+
+    /**
+     * Returns a boolean option.
+     *
+     * @param name         The option name, without dashes.
+     * @param defaultValue The value to use if the option is absent.
+     * @return The option value.
+     */
+    public boolean getBoolean(String name, boolean defaultValue) {
+        String value = values.get(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+}
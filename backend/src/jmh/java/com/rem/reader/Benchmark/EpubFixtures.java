@@ -0,0 +1,343 @@
+package com.rem.reader.Benchmark;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import javax.imageio.ImageIO;
+
+public final class EpubFixtures {
+
+    private static final String[] WORDS = {
+            "the", "of", "and", "a", "to", "in", "was", "he", "she", "that", "it", "his", "her", "with",
+            "as", "had", "for", "on", "at", "by", "not", "but", "from", "they", "which", "were", "said",
+            "river", "lantern", "harbour", "window", "letter", "morning", "silence", "garden", "winter",
+            "carriage", "stranger", "promise", "shadow", "captain", "village", "whisper", "journey",
+            "remembered", "suddenly", "quietly", "beneath", "already", "through", "without", "against",
+            "caf\u00e9", "na\u00efve", "fa\u00e7ade", "Z\u00fcrich", "\u00c5ngstr\u00f6m"
+    };
+
+    // 2020-01-01T00:00:00Z
+    private static final long FIXED_TIME = 1577836800000L;
+
+    private EpubFixtures() {
+    }
+
+    // Public methods
+
+    /**
+     * Writes a synthetic EPUB 3 without inline images.
+     *
+     * @param target     The file to write.
+     * @param title      The book title.
+     * @param chapters   The number of chapters.
+     * @param paragraphs The number of paragraphs per chapter.
+     * @param cover      Whether to include a cover image.
+     * @return The written file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static Path writeEpub(Path target, String title, int chapters, int paragraphs, boolean cover)
+            throws IOException {
+        return writeEpub(target, title, chapters, paragraphs, 0, 0, cover);
+    }
+
+    /**
+     * Writes a synthetic EPUB 3 with deterministic content. The same
+     * arguments always give the same bytes, so results from different runs
+     * are comparable. Images are spread over the chapters round-robin, each
+     * in a paragraph of its own so it gets a page of its own.
+     *
+     * @param target     The file to write.
+     * @param title      The book title.
+     * @param chapters   The number of chapters.
+     * @param paragraphs The number of paragraphs per chapter.
+     * @param images     The number of inline images.
+     * @param imageWidth The width of each inline image in pixels; the height is 4/3 of it.
+     * @param cover      Whether to include a cover image.
+     * @return The written file.
+     * @throws IOException If the file cannot be written.
+     */
+    public static Path writeEpub(Path target, String title, int chapters, int paragraphs, int images,
+            int imageWidth, boolean cover) throws IOException {
+        Random random = new Random(31L * chapters + paragraphs);
+        Files.createDirectories(target.toAbsolutePath().getParent());
+
+        try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(target))) {
+            // The mimetype entry must come first and be stored uncompressed
+            byte[] mimetype = "application/epub+zip".getBytes(StandardCharsets.US_ASCII);
+            ZipEntry mimetypeEntry = newEntry("mimetype");
+            mimetypeEntry.setMethod(ZipEntry.STORED);
+            mimetypeEntry.setSize(mimetype.length);
+            CRC32 crc = new CRC32();
+            crc.update(mimetype);
+            mimetypeEntry.setCrc(crc.getValue());
+            zip.putNextEntry(mimetypeEntry);
+            zip.write(mimetype);
+            zip.closeEntry();
+
+            writeEntry(zip, "META-INF/container.xml", """
+                    <?xml version="1.0" encoding="UTF-8"?>
+                    <container version="1.0" xmlns="urn:oasis:names:tc:opendocument:xmlns:container">
+                      <rootfiles>
+                        <rootfile full-path="OEBPS/content.opf" media-type="application/oebps-package+xml"/>
+                      </rootfiles>
+                    </container>
+                    """);
+            writeEntry(zip, "OEBPS/content.opf", opf(title, chapters, images, cover));
+
+            for (int i = 1; i <= chapters; i++)
+                writeEntry(zip, "OEBPS/" + chapterName(i), chapter(random, i, chapters, paragraphs, images));
+
+            for (int i = 1; i <= images; i++) {
+                zip.putNextEntry(newEntry("OEBPS/" + imageName(i)));
+                zip.write(imageJpeg(new Random(i), imageWidth));
+                zip.closeEntry();
+            }
+
+            if (cover) {
+                zip.putNextEntry(newEntry("OEBPS/images/cover.jpg"));
+                zip.write(coverJpeg(title));
+                zip.closeEntry();
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Deletes a fixture directory and everything in it.
+     *
+     * @param dir The directory to delete.
+     * @throws IOException If a file cannot be deleted.
+     */
+    public static void deleteRecursively(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir))
+            return;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(path);
+        }
+    }
+
+    // Private methods
+
+    /**
+     * Builds the package document.
+     *
+     * @param title    The book title.
+     * @param chapters The number of chapters.
+     * @param images   The number of inline images.
+     * @param cover    Whether the book has a cover image.
+     * @return The OPF as XML.
+     */
+    private static String opf(String title, int chapters, int images, boolean cover) {
+        StringBuilder manifest = new StringBuilder();
+        StringBuilder spine = new StringBuilder();
+        for (int i = 1; i <= chapters; i++) {
+            manifest.append("    <item id=\"ch").append(i).append("\" href=\"").append(chapterName(i))
+                    .append("\" media-type=\"application/xhtml+xml\"/>\n");
+            spine.append("    <itemref idref=\"ch").append(i).append("\"/>\n");
+        }
+        for (int i = 1; i <= images; i++)
+            manifest.append("    <item id=\"img").append(i).append("\" href=\"").append(imageName(i))
+                    .append("\" media-type=\"image/jpeg\"/>\n");
+        if (cover)
+            manifest.append("    <item id=\"cover\" href=\"images/cover.jpg\" media-type=\"image/jpeg\""
+                    + " properties=\"cover-image\"/>\n");
+
+        return """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <package xmlns="http://www.idpf.org/2007/opf" version="3.0" unique-identifier="id">
+                  <metadata xmlns:dc="http://purl.org/dc/elements/1.1/">
+                    <dc:identifier id="id">urn:uuid:00000000-0000-0000-0000-000000000000</dc:identifier>
+                    <dc:title>%s</dc:title>
+                    <dc:creator>Synthetic Author</dc:creator>
+                    <dc:description>Generated fixture with %d chapters.</dc:description>
+                    <dc:language>en</dc:language>
+                  </metadata>
+                  <manifest>
+                %s  </manifest>
+                  <spine>
+                %s  </spine>
+                </package>
+                """.formatted(escape(title), chapters, manifest, spine);
+    }
+
+    /**
+     * Builds one chapter document: a heading followed by paragraphs of
+     * pseudo-random prose, with the occasional emphasis and blockquote, and
+     * this chapter's share of the images spread evenly between them.
+     *
+     * @param random     The seeded random source.
+     * @param number     The chapter number.
+     * @param chapters   The number of chapters in the book.
+     * @param paragraphs The number of paragraphs.
+     * @param images     The number of inline images in the book.
+     * @return The chapter as XHTML.
+     */
+    private static String chapter(Random random, int number, int chapters, int paragraphs, int images) {
+        // Images number, chapter, chapter + chapters, ... belong to this chapter
+        int ownImages = images >= number ? (images - number) / chapters + 1 : 0;
+        int nextImage = 0;
+
+        StringBuilder body = new StringBuilder();
+        body.append("<h2>Chapter ").append(number).append("</h2>\n");
+        for (int i = 0; i < paragraphs; i++) {
+            while (nextImage < ownImages && (long) i * (ownImages + 1) >= (long) (nextImage + 1) * paragraphs) {
+                int image = number + nextImage++ * chapters;
+                body.append("<p><img src=\"").append(imageName(image)).append("\" alt=\"\"/></p>\n");
+            }
+            boolean quote = random.nextInt(20) == 0;
+            body.append(quote ? "<blockquote><p>" : "<p>");
+            int sentences = 2 + random.nextInt(5);
+            for (int s = 0; s < sentences; s++) {
+                int words = 6 + random.nextInt(14);
+                for (int w = 0; w < words; w++) {
+                    String word = WORDS[random.nextInt(WORDS.length)];
+                    if (w == 0)
+                        word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                    if (w > 0)
+                        body.append(' ');
+                    if (random.nextInt(40) == 0)
+                        body.append("<em>").append(word).append("</em>");
+                    else
+                        body.append(word);
+                }
+                body.append(". ");
+            }
+            body.append(quote ? "</p></blockquote>\n" : "</p>\n");
+        }
+        while (nextImage < ownImages) {
+            int image = number + nextImage++ * chapters;
+            body.append("<p><img src=\"").append(imageName(image)).append("\" alt=\"\"/></p>\n");
+        }
+
+        return """
+                <?xml version="1.0" encoding="UTF-8"?>
+                <html xmlns="http://www.w3.org/1999/xhtml">
+                <head><title>Chapter %d</title></head>
+                <body>
+                %s</body>
+                </html>
+                """.formatted(number, body);
+    }
+
+    /**
+     * Renders a plain cover image.
+     *
+     * @param title The book title, drawn on the cover.
+     * @return The cover as JPEG bytes.
+     * @throws IOException If the image cannot be encoded.
+     */
+    private static byte[] coverJpeg(String title) throws IOException {
+        BufferedImage image = new BufferedImage(600, 900, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(new Color(0x2d4a6b));
+            graphics.fillRect(0, 0, 600, 900);
+            graphics.setColor(Color.WHITE);
+            graphics.drawString(title, 60, 200);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Renders an inline illustration: overlapping soft-edged shapes, which
+     * compress about as well as a typical photograph or scan.
+     *
+     * @param random The seeded random source.
+     * @param width  The image width in pixels.
+     * @return The image as JPEG bytes.
+     * @throws IOException If the image cannot be encoded.
+     */
+    private static byte[] imageJpeg(Random random, int width) throws IOException {
+        int height = width * 4 / 3;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setColor(new Color(random.nextInt(0x1000000)));
+            graphics.fillRect(0, 0, width, height);
+            for (int i = 0; i < 200; i++) {
+                graphics.setColor(new Color(random.nextInt(0x1000000) | 0x40000000, true));
+                int size = 1 + random.nextInt(Math.max(1, width / 4));
+                graphics.fillOval(random.nextInt(width), random.nextInt(height), size, size);
+            }
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes a UTF-8 text entry.
+     *
+     * @param zip     The archive being written.
+     * @param name    The entry name.
+     * @param content The entry content.
+     * @throws IOException If the entry cannot be written.
+     */
+    private static void writeEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(newEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    /**
+     * Creates an archive entry with a fixed timestamp, so the archive bytes
+     * do not depend on when it was written.
+     *
+     * @param name The entry name.
+     * @return The new entry.
+     */
+    private static ZipEntry newEntry(String name) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(FIXED_TIME);
+        return entry;
+    }
+
+    /**
+     * Returns the file name of a chapter.
+     *
+     * @param number The chapter number.
+     * @return The chapter file name.
+     */
+    private static String chapterName(int number) {
+        return "chapter-" + number + ".xhtml";
+    }
+
+    /**
+     * Returns the path of an inline image, relative to the OPF.
+     *
+     * @param number The image number.
+     * @return The image path.
+     */
+    private static String imageName(int number) {
+        return "images/image-" + number + ".jpg";
+    }
+
+    /**
+     * Escapes text for use in XML content.
+     *
+     * @param text The text to escape.
+     * @return The escaped text.
+     */
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
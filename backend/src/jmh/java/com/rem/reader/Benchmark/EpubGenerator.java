@@ -0,0 +1,94 @@
+package com.rem.reader.Benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates a corpus of synthetic EPUBs for load testing.
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:java@generate-epubs \
+ *     -Dexec.args="--out target/epubs --books 50 --chapters 30 --paragraphs 60 --images 10 --image-width 1200"
+ * </pre>
+ *
+ * Options: --out (target/epubs), --books (10), --chapters (20), --paragraphs
+ * (40), --images (0), --image-width (800) and --cover (true).
+ */
+public final class EpubGenerator {
+
+    private final int books;
+    private final int chapters;
+    private final int paragraphs;
+    private final int images;
+    private final int imageWidth;
+    private final boolean cover;
+
+    /**
+     * Reads the corpus shape from the command-line options.
+     *
+     * @param options The parsed options.
+     */
+    public EpubGenerator(CommandLineOptions options) {
+        this.books = options.getInt("books", 10);
+        this.chapters = Math.max(1, options.getInt("chapters", 20));
+        this.paragraphs = options.getInt("paragraphs", 40);
+        this.images = options.getInt("images", 0);
+        this.imageWidth = Math.max(16, options.getInt("image-width", 800));
+        this.cover = options.getBoolean("cover", true);
+    }
+
+    // Public methods
+
+    /**
+     * Writes the corpus to the folder given by --out.
+     *
+     * @param args The command-line arguments.
+     * @throws IOException If a book cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        Path out = Path.of(options.get("out", "target/epubs"));
+        EpubGenerator generator = new EpubGenerator(options);
+
+        long start = System.nanoTime();
+        List<Path> written = generator.generate(out);
+        long bytes = 0;
+        for (Path book : written)
+            bytes += Files.size(book);
+
+        System.out.printf("Wrote %d books (%.1f MB) to %s in %d ms%n", written.size(), bytes / 1e6,
+                out.toAbsolutePath(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Writes the corpus. Every book gets a distinct title, so uploads are
+     * not folded together by duplicate detection.
+     *
+     * @param out The folder to write to.
+     * @return The written books.
+     * @throws IOException If a book cannot be written.
+     */
+    public List<Path> generate(Path out) throws IOException {
+        Files.createDirectories(out);
+        List<Path> written = new ArrayList<>(books);
+        for (int i = 1; i <= books; i++) {
+            String name = String.format("book-%04d.epub", i);
+            written.add(EpubFixtures.writeEpub(out.resolve(name), "Synthetic Book " + i, chapters, paragraphs,
+                    images, imageWidth, cover));
+        }
+        return written;
+    }
+
+    /**
+     * Describes the corpus shape, for reports.
+     *
+     * @return A one-line description.
+     */
+    public String describe() {
+        return String.format("%d books x %d chapters x %d paragraphs, %d images of %dpx, cover %s", books,
+                chapters, paragraphs, images, imageWidth, cover ? "yes" : "no");
+    }
+}
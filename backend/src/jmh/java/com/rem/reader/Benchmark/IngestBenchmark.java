@@ -0,0 +1,340 @@
+package com.rem.reader.Benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.boot.Banner;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rem.reader.Models.Book;
+import com.rem.reader.Models.IngestionState;
+import com.rem.reader.Repo.BookRepo;
+import com.rem.reader.ReaderApplication;
+import com.rem.reader.Service.BookIngestionService;
+
+/**
+ * End-to-end ingest benchmark. Starts the application on a fresh database
+ * and books folder, uploads a generated corpus through the upload endpoint
+ * from several clients at once, and waits until every book is paginated.
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:java@ingest-benchmark \
+ *     -Dexec.args="--books 100 --concurrency 8 --chapters 30 --images 5"
+ * </pre>
+ *
+ * Takes the EpubGenerator options plus --concurrency (4) and --keep
+ * (false), which leaves the database and books behind for inspection.
+ */
+public final class IngestBenchmark {
+
+    private static final String BOUNDARY = "reader-ingest-benchmark";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * The outcome of one upload request.
+     */
+    private record Upload(UUID bookUuid, long latencyNanos) {}
+
+    private IngestBenchmark() {
+    }
+
+    // Public methods
+
+    /**
+     * Runs the benchmark and prints the report.
+     *
+     * @param args The command-line arguments.
+     * @throws Exception If the application fails to start or the run is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        int concurrency = Math.max(1, options.getInt("concurrency", 4));
+        boolean keep = options.getBoolean("keep", false);
+        EpubGenerator generator = new EpubGenerator(options);
+
+        Path workDir = Files.createTempDirectory("reader-ingest");
+        Path database = workDir.resolve("reader.db");
+        List<Path> corpus = generator.generate(workDir.resolve("corpus"));
+
+        // Passed as arguments rather than default properties, which application.properties would override
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ReaderApplication.class)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run("--server.port=0",
+                        "--management.server.port=-1",
+                        "--spring.datasource.url=jdbc:sqlite:" + database,
+                        "--reader.books.dir=" + workDir.resolve("books"),
+                        "--logging.level.root=WARN");
+
+        HeapSampler heapSampler = new HeapSampler();
+        List<Upload> uploads;
+        long elapsedNanos;
+        long pages;
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            URI uploadUri = URI.create("http://localhost:" + port + "/api/books/upload");
+
+            heapSampler.start();
+            long start = System.nanoTime();
+            uploads = uploadAll(uploadUri, corpus, concurrency);
+            Set<UUID> bookUuids = new HashSet<>();
+            for (Upload upload : uploads) {
+                if (upload.bookUuid() != null)
+                    bookUuids.add(upload.bookUuid());
+            }
+            awaitIngestion(context, bookUuids);
+            elapsedNanos = System.nanoTime() - start;
+            heapSampler.stop();
+
+            pages = 0;
+            for (Book book : context.getBean(BookRepo.class).findByUuidIn(bookUuids)) {
+                if (book.getIngestionState() == IngestionState.DONE)
+                    pages += book.getPages();
+            }
+        } finally {
+            heapSampler.stop();
+            context.close();
+        }
+
+        long databaseBytes = fileSize(database) + fileSize(database.resolveSibling("reader.db-wal"));
+        printReport(generator, concurrency, uploads, elapsedNanos, pages, heapSampler.peakBytes(), databaseBytes);
+
+        if (keep)
+            System.out.println("Kept " + workDir);
+        else
+            EpubFixtures.deleteRecursively(workDir);
+    }
+
+    // Private methods
+
+    /**
+     * Uploads every book of the corpus, with a fixed number of uploads in
+     * flight at any time.
+     *
+     * @param uploadUri   The upload endpoint.
+     * @param corpus      The books to upload.
+     * @param concurrency The number of concurrent clients.
+     * @return The outcome of each upload.
+     * @throws Exception If an upload cannot be sent or the run is interrupted.
+     */
+    private static List<Upload> uploadAll(URI uploadUri, List<Path> corpus, int concurrency) throws Exception {
+        HttpClient client = HttpClient.newHttpClient();
+        ExecutorService clients = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Upload>> pending = new ArrayList<>();
+            for (Path book : corpus)
+                pending.add(clients.submit(() -> upload(client, uploadUri, book)));
+
+            List<Upload> uploads = new ArrayList<>(pending.size());
+            for (Future<Upload> upload : pending)
+                uploads.add(upload.get());
+            return uploads;
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    /**
+     * Uploads one book as a multipart form, the way the library page does.
+     *
+     * @param client    The HTTP client.
+     * @param uploadUri The upload endpoint.
+     * @param book      The EPUB to upload.
+     * @return The outcome; the book UUID is null if the upload failed.
+     * @throws IOException          If the request cannot be sent.
+     * @throws InterruptedException If the run is interrupted.
+     */
+    private static Upload upload(HttpClient client, URI uploadUri, Path book) throws IOException, InterruptedException {
+        String head = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"file\"; filename=\"" + book.getFileName() + "\"\r\n"
+                + "Content-Type: application/epub+zip\r\n\r\n";
+        String tail = "\r\n--" + BOUNDARY + "--\r\n";
+        HttpRequest request = HttpRequest.newBuilder(uploadUri)
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .POST(HttpRequest.BodyPublishers.concat(
+                        HttpRequest.BodyPublishers.ofString(head, StandardCharsets.UTF_8),
+                        HttpRequest.BodyPublishers.ofFile(book),
+                        HttpRequest.BodyPublishers.ofString(tail, StandardCharsets.UTF_8)))
+                .build();
+
+        long start = System.nanoTime();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        long latency = System.nanoTime() - start;
+
+        if (response.statusCode() != 200) {
+            System.err.println("Upload of " + book.getFileName() + " failed with " + response.statusCode()
+                    + ": " + response.body());
+            return new Upload(null, latency);
+        }
+        JsonNode body = OBJECT_MAPPER.readTree(response.body());
+        return new Upload(UUID.fromString(body.get("uuid").asText()), latency);
+    }
+
+    /**
+     * Waits until every uploaded book is paginated. Books the ingestion
+     * queue could not take are left queued by the upload, so they are
+     * enqueued again here until the pool accepts them.
+     *
+     * @param context   The application context.
+     * @param bookUuids The uploaded books.
+     * @throws InterruptedException If the run is interrupted.
+     */
+    private static void awaitIngestion(ConfigurableApplicationContext context, Set<UUID> bookUuids)
+            throws InterruptedException {
+        BookRepo bookRepo = context.getBean(BookRepo.class);
+        BookIngestionService bookIngestionService = context.getBean(BookIngestionService.class);
+        Set<UUID> remaining = new HashSet<>(bookUuids);
+
+        while (!remaining.isEmpty()) {
+            for (UUID bookUuid : List.copyOf(remaining)) {
+                // Checked before the state: the in-flight entry is released only after the final state is stored
+                boolean inFlight = bookIngestionService.isInFlight(bookUuid);
+                IngestionState state = bookRepo.findByUuid(bookUuid).getIngestionState();
+                if (state == IngestionState.DONE || state == IngestionState.FAILED)
+                    remaining.remove(bookUuid);
+                else if (!inFlight)
+                    bookIngestionService.enqueue(bookUuid);
+            }
+            if (!remaining.isEmpty())
+                Thread.sleep(50);
+        }
+    }
+
+    /**
+     * Prints the results.
+     *
+     * @param generator     The corpus generator.
+     * @param concurrency   The number of concurrent clients.
+     * @param uploads       The outcome of each upload.
+     * @param elapsedNanos  The time from the first upload until the last book was paginated.
+     * @param pages         The number of pages produced.
+     * @param peakHeapBytes The highest heap use seen during the run.
+     * @param databaseBytes The size of the database after the run.
+     */
+    private static void printReport(EpubGenerator generator, int concurrency, List<Upload> uploads,
+            long elapsedNanos, long pages, long peakHeapBytes, long databaseBytes) {
+        long[] latencies = uploads.stream().mapToLong(Upload::latencyNanos).sorted().toArray();
+        long failed = uploads.stream().filter(upload -> upload.bookUuid() == null).count();
+        double seconds = elapsedNanos / 1e9;
+
+        System.out.println();
+        System.out.println("Corpus:            " + generator.describe());
+        System.out.println("Concurrency:       " + concurrency);
+        System.out.printf("Uploaded:          %d books, %d failed%n", uploads.size() - failed, failed);
+        System.out.printf("Elapsed:           %.2f s%n", seconds);
+        System.out.printf("Throughput:        %.1f books/min, %.0f pages/s%n", (uploads.size() - failed) * 60 / seconds,
+                pages / seconds);
+        System.out.printf("Upload latency:    p50 %.1f ms, p99 %.1f ms%n", percentile(latencies, 0.50) / 1e6,
+                percentile(latencies, 0.99) / 1e6);
+        System.out.printf("Pages:             %d%n", pages);
+        System.out.printf("Peak heap:         %.1f MB%n", peakHeapBytes / 1e6);
+        System.out.printf("Database size:     %.1f MB%n", databaseBytes / 1e6);
+    }
+
+    /**
+     * Returns a percentile by the nearest-rank method.
+     *
+     * @param sorted   The values in ascending order.
+     * @param fraction The percentile as a fraction, e.g. 0.99.
+     * @return The percentile, or 0 if there are no values.
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0)
+            return 0;
+        int rank = (int) Math.ceil(fraction * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * Returns the size of a file.
+     *
+     * @param file The file.
+     * @return The size in bytes, or 0 if it does not exist.
+     * @throws IOException If the size cannot be read.
+     */
+    private static long fileSize(Path file) throws IOException {
+        return Files.exists(file) ? Files.size(file) : 0;
+    }
+
+    /**
+     * Samples heap use in the background and keeps the highest value seen.
+     * Sampling after the fact from the memory pools' own peaks would add up
+     * peaks of different moments and overstate it.
+     */
+    private static final class HeapSampler {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong peak = new AtomicLong();
+        private Thread thread;
+
+        /**
+         * Starts sampling every 10 ms.
+         */
+        void start() {
+            thread = new Thread(() -> {
+                while (!Thread.currentThread().isInterrupted()) {
+                    sample();
+                    try {
+                        Thread.sleep(10);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }, "heap-sampler");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        /**
+         * Stops sampling, taking one last sample.
+         *
+         * @throws InterruptedException If interrupted while waiting for the sampler.
+         */
+        void stop() throws InterruptedException {
+            if (thread == null)
+                return;
+            thread.interrupt();
+            thread.join();
+            thread = null;
+            sample();
+        }
+
+        /**
+         * Returns the highest heap use seen.
+         *
+         * @return The peak in bytes.
+         */
+        long peakBytes() {
+            return peak.get();
+        }
+
+        /**
+         * Records the current heap use.
+         */
+        private void sample() {
+            peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+        }
+    }
+}
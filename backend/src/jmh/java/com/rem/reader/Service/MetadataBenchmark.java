@@ -0,0 +1,113 @@
+package com.rem.reader.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipFile;
+
+import org.apache.tika.exception.TikaException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.xml.sax.SAXException;
+
+import com.rem.reader.Benchmark.EpubFixtures;
+import com.rem.reader.Service.EpubPackageService.EpubPackage;
+
+/**
+ * Metadata and cover extraction at upload time. The Tika parse and the
+ * archive scan for a cover are the fallbacks in BookService; reading the
+ * OPF is the primary path and is measured alongside them for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetadataBenchmark {
+
+    @Param({ "20" })
+    int chapters;
+
+    @Param({ "40" })
+    int paragraphs;
+
+    private Path fixtureDir;
+    private Path epub;
+    private Path bookFolder;
+    private EpubPackageService epubPackageService;
+
+    /**
+     * Generates a book with a cover.
+     *
+     * @throws IOException If the fixture cannot be written.
+     */
+    @Setup
+    public void setup() throws IOException {
+        fixtureDir = Files.createTempDirectory("reader-jmh");
+        epub = EpubFixtures.writeEpub(fixtureDir.resolve("book.epub"), "Metadata", chapters, paragraphs, true);
+        bookFolder = Files.createDirectories(fixtureDir.resolve("book"));
+        epubPackageService = new EpubPackageService();
+    }
+
+    /**
+     * Removes the fixture.
+     *
+     * @throws IOException If the fixture cannot be removed.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        EpubFixtures.deleteRecursively(fixtureDir);
+    }
+
+    /**
+     * Extracts title, author and description with Tika.
+     *
+     * @return The extracted metadata.
+     * @throws IOException   If the book cannot be read.
+     * @throws TikaException If Tika fails to parse the book.
+     * @throws SAXException  If Tika fails to parse the book.
+     */
+    @Benchmark
+    public Map<String, String> tikaMetadata() throws IOException, TikaException, SAXException {
+        return BookService.extractMetaData(epub);
+    }
+
+    /**
+     * Finds and copies the cover by scanning the archive for an entry named
+     * like a cover.
+     *
+     * @return The name of the copied cover.
+     * @throws IOException If the book cannot be read or the cover written.
+     */
+    @Benchmark
+    public String scanCover() throws IOException {
+        return BookService.extractCoverImage(epub, bookFolder);
+    }
+
+    /**
+     * Reads metadata and cover from the OPF and copies the cover.
+     *
+     * @return The name of the copied cover.
+     * @throws IOException If the book cannot be read or the cover written.
+     */
+    @Benchmark
+    public String opfMetadataAndCover() throws IOException {
+        try (ZipFile zipFile = new ZipFile(epub.toFile())) {
+            EpubPackage epubPackage = epubPackageService.readPackage(zipFile);
+            return epubPackageService.copyCover(zipFile, epubPackage.coverPath(), bookFolder);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.rem.reader.Service;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.rem.reader.Benchmark.EpubFixtures;
+import com.rem.reader.Models.Book;
+import com.rem.reader.Models.BookPageCache;
+import com.rem.reader.Models.IngestionState;
+import com.rem.reader.Repo.BookPageCacheRepo;
+import com.rem.reader.Repo.BookRepo;
+import com.rem.reader.ReaderApplication;
+
+/**
+ * Page reads through BookPageCacheRepo against a seeded SQLite file. The
+ * application runs without a web server on a database of its own, and the
+ * book is seeded through the regular ingestion pipeline so the rows are
+ * compressed and indexed exactly as in production. The in-memory page cache
+ * is bypassed; these are the queries it falls back to on a miss.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageLookupBenchmark {
+
+    @Param({ "200" })
+    int chapters;
+
+    @Param({ "40" })
+    int paragraphs;
+
+    @Param({ "10" })
+    int rangePages;
+
+    private Path fixtureDir;
+    private ConfigurableApplicationContext context;
+    private BookPageCacheRepo bookPageCacheRepo;
+    private UUID bookUuid;
+    private int pages;
+
+    /**
+     * A random page number per benchmark thread.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        /**
+         * Returns the next page number.
+         *
+         * @param bound The number of pages to choose from.
+         * @return A page number below the bound.
+         */
+        int next(int bound) {
+            return random.nextInt(bound);
+        }
+    }
+
+    /**
+     * Starts the application on a fresh database and ingests the book.
+     *
+     * @throws Exception If the application fails to start or the book cannot be ingested.
+     */
+    @Setup
+    public void setup() throws Exception {
+        fixtureDir = Files.createTempDirectory("reader-jmh");
+        Path epub = EpubFixtures.writeEpub(fixtureDir.resolve("book.epub"), "Lookup", chapters, paragraphs, false);
+
+        // Passed as arguments rather than default properties, which application.properties would override
+        context = new SpringApplicationBuilder(ReaderApplication.class)
+                .web(WebApplicationType.NONE)
+                .bannerMode(Banner.Mode.OFF)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:sqlite:" + fixtureDir.resolve("reader.db"),
+                        "--logging.level.root=WARN");
+
+        Book book = new Book();
+        bookUuid = UUID.randomUUID();
+        book.setUuid(bookUuid);
+        book.setTitle("Lookup");
+        book.setFilePath(epub.toString());
+        book.setIngestionState(IngestionState.QUEUED);
+        context.getBean(BookRepo.class).save(book);
+
+        pages = context.getBean(BookIngestionService.class).enqueue(bookUuid).get();
+        bookPageCacheRepo = context.getBean(BookPageCacheRepo.class);
+    }
+
+    /**
+     * Stops the application and removes the database and fixture.
+     *
+     * @throws Exception If the fixture cannot be removed.
+     */
+    @TearDown
+    public void tearDown() throws Exception {
+        context.close();
+        EpubFixtures.deleteRecursively(fixtureDir);
+    }
+
+    /**
+     * Reads one page by (book, page number), as a page turn does.
+     *
+     * @param cursor The page number source.
+     * @return The page.
+     */
+    @Benchmark
+    public BookPageCache pointLookup(Cursor cursor) {
+        return bookPageCacheRepo.findByBookIdAndPageNumber(bookUuid, cursor.next(pages));
+    }
+
+    /**
+     * Reads a block of consecutive pages, as the range endpoint and
+     * read-ahead do.
+     *
+     * @param cursor The page number source.
+     * @return The pages.
+     */
+    @Benchmark
+    public List<BookPageCache> rangeLookup(Cursor cursor) {
+        int from = cursor.next(Math.max(1, pages - rangePages));
+        return bookPageCacheRepo.findByBookIdAndPageNumberBetweenOrderByPageNumberAsc(
+                bookUuid, from, from + rangePages - 1);
+    }
+}
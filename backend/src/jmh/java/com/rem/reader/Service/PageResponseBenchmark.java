@@ -0,0 +1,99 @@
+package com.rem.reader.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rem.reader.Benchmark.EpubFixtures;
+import com.rem.reader.Models.BookPageCache;
+
+/**
+ * Serialization of the getBookPages response for a typical page: the plain
+ * JSON body written for clients without gzip, and the gzipped body that is
+ * encoded once per page, kept in memory and served as is to everyone else.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageResponseBenchmark {
+
+    private static final int TOTAL_PAGES = 500;
+
+    private ObjectMapper objectMapper;
+    private PageResponseService pageResponseService;
+    private BookPageCache page;
+
+    /**
+     * Paginates one generated chapter and keeps a full page from it.
+     *
+     * @throws IOException If the fixture cannot be written or read.
+     */
+    @Setup
+    public void setup() throws IOException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        pageResponseService = new PageResponseService();
+        pageResponseService.objectMapper = objectMapper;
+
+        BookIngestionService bookIngestionService = new BookIngestionService();
+        bookIngestionService.bookSearchService = new BookSearchService();
+        bookIngestionService.epubPackageService = new EpubPackageService();
+
+        Path fixtureDir = Files.createTempDirectory("reader-jmh");
+        try {
+            Path epub = EpubFixtures.writeEpub(fixtureDir.resolve("book.epub"), "Response", 1, 60, false);
+            try (ZipFile zipFile = new ZipFile(epub.toFile())) {
+                ZipEntry chapter = bookIngestionService.findChapters(zipFile).get(0);
+                page = bookIngestionService.paginateChapter(zipFile, chapter, UUID.randomUUID()).get(1);
+            }
+        } finally {
+            EpubFixtures.deleteRecursively(fixtureDir);
+        }
+        page.setPageNumber(TOTAL_PAGES / 2);
+    }
+
+    /**
+     * Serializes the response body the way the controller writes it for a
+     * client that does not accept gzip.
+     *
+     * @return The JSON body.
+     * @throws JsonProcessingException If the page cannot be serialized.
+     */
+    @Benchmark
+    public byte[] plainJson() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(Map.of("pages", List.of(page), "totalPages", TOTAL_PAGES));
+    }
+
+    /**
+     * Serializes and gzips the response body, as done once per page on its
+     * first gzipped read.
+     *
+     * @return The gzipped JSON body.
+     */
+    @Benchmark
+    public byte[] gzipEncoded() {
+        return pageResponseService.encode(page, TOTAL_PAGES);
+    }
+}
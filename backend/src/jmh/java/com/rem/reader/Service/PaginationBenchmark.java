@@ -0,0 +1,97 @@
+package com.rem.reader.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.rem.reader.Benchmark.EpubFixtures;
+import com.rem.reader.Models.BookPageCache;
+
+/**
+ * Pagination as done by extractAndCachePages, without the database: every
+ * chapter of a generated book is parsed and split into pages, including the
+ * search text of each page. One operation is one whole book.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PaginationBenchmark {
+
+    @Param({ "20" })
+    int chapters;
+
+    @Param({ "40", "400" })
+    int paragraphs;
+
+    private final UUID bookUuid = UUID.randomUUID();
+
+    private Path fixtureDir;
+    private ZipFile zipFile;
+    private List<ZipEntry> chapterEntries;
+    private BookIngestionService bookIngestionService;
+
+    /**
+     * Generates the book and opens it once for the whole run.
+     *
+     * @throws IOException If the fixture cannot be written or read.
+     */
+    @Setup
+    public void setup() throws IOException {
+        fixtureDir = Files.createTempDirectory("reader-jmh");
+        Path epub = EpubFixtures.writeEpub(fixtureDir.resolve("book.epub"), "Pagination", chapters, paragraphs, false);
+
+        bookIngestionService = new BookIngestionService();
+        bookIngestionService.bookSearchService = new BookSearchService();
+        bookIngestionService.epubPackageService = new EpubPackageService();
+
+        zipFile = new ZipFile(epub.toFile());
+        chapterEntries = bookIngestionService.findChapters(zipFile);
+    }
+
+    /**
+     * Closes the book and removes the fixture.
+     *
+     * @throws IOException If the fixture cannot be removed.
+     */
+    @TearDown
+    public void tearDown() throws IOException {
+        zipFile.close();
+        EpubFixtures.deleteRecursively(fixtureDir);
+    }
+
+    /**
+     * Paginates every chapter of the book in spine order.
+     *
+     * @param blackhole Consumes the pages.
+     * @throws IOException If a chapter cannot be read.
+     */
+    @Benchmark
+    public void paginateBook(Blackhole blackhole) throws IOException {
+        for (ZipEntry chapter : chapterEntries) {
+            List<BookPageCache> pages = bookIngestionService.paginateChapter(zipFile, chapter, bookUuid);
+            blackhole.consume(pages);
+        }
+    }
+}
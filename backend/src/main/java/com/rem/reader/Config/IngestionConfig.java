@@ -0,0 +1,75 @@
+package com.rem.reader.Config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class IngestionConfig {
+
+    @Value("${reader.ingestion.threads:2}")
+    private int threads;
+
+    @Value("${reader.ingestion.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${reader.ingestion.parse-threads:0}")
+    private int parseThreads;
+
+    /**
+     * Bounded pool used to paginate uploaded books off the request threads.
+     * Submissions beyond the queue capacity are rejected instead of piling up.
+     */
+    @Bean(name = "ingestionExecutor")
+    public ThreadPoolTaskExecutor ingestionExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ingest-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Single thread for the background jobs run after startup, such as
+     * migrating data stored by earlier versions. They are kept off the
+     * ingestion pool so they cannot take its queue slots from uploads or
+     * delay them, and run one after another. The queue is unbounded, as
+     * only a handful of such jobs are ever submitted.
+     */
+    @Bean(name = "maintenanceExecutor")
+    public ThreadPoolTaskExecutor maintenanceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setThreadNamePrefix("maintenance-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Pool that parses and paginates the chapters of a book in parallel while
+     * the ingestion thread writes the results in spine order. Defaults to one
+     * thread per core; when it is saturated the ingestion thread parses the
+     * chapter itself instead of failing.
+     */
+    @Bean(name = "paginationExecutor")
+    public ThreadPoolTaskExecutor paginationExecutor() {
+        int size = parseThreads > 0 ? parseThreads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(size);
+        executor.setMaxPoolSize(size);
+        executor.setQueueCapacity(size * 4);
+        executor.setThreadNamePrefix("paginate-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
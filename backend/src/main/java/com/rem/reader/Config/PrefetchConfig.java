@@ -0,0 +1,35 @@
+package com.rem.reader.Config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class PrefetchConfig {
+
+    @Value("${reader.prefetch.threads:1}")
+    private int threads;
+
+    @Value("${reader.prefetch.queue-capacity:32}")
+    private int queueCapacity;
+
+    /**
+     * Small low-priority pool for page read-ahead. When it is busy new
+     * prefetch work is dropped, since a missed prefetch only costs a cache miss.
+     */
+    @Bean(name = "prefetchExecutor")
+    public ThreadPoolTaskExecutor prefetchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("prefetch-");
+        executor.setThreadPriority(Thread.MIN_PRIORITY);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.DiscardPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,97 @@
+package com.rem.reader.Config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.sqlite.SQLiteConfig.TransactionMode;
+import org.sqlite.SQLiteConnection;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+
+@Configuration
+public class SqliteConfig {
+
+    /**
+     * Puts the database in WAL mode, so page reads keep running while the
+     * ingestion pool writes, and sets the SQLite busy timeout once per
+     * physical connection, so concurrent writers wait for the lock instead
+     * of failing with SQLITE_BUSY. Both are set here rather than in the
+     * datasource URL, so a URL overridden for tests or benchmarks keeps
+     * them. sqlite-jdbc reports its configured busy timeout as every
+     * statement's query timeout, and Hibernate resets a non-zero query
+     * timeout to 0 on each statement it closes, which clears the busy
+     * timeout of the whole connection. The driver's own setting is therefore
+     * left at 0, which Hibernate leaves alone, and the real timeout is applied
+     * with a PRAGMA when the pool opens the connection.
+     */
+    @Bean
+    public static BeanPostProcessor sqliteConnectionPostProcessor(
+            @Value("${reader.sqlite.busy-timeout-millis:10000}") int busyTimeoutMillis) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    dataSource.addDataSourceProperty("journal_mode", "WAL");
+                    dataSource.addDataSourceProperty("busy_timeout", "0");
+                    dataSource.setConnectionInitSql("PRAGMA busy_timeout = " + busyTimeoutMillis);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Starts read-write transactions with BEGIN IMMEDIATE and read-only ones
+     * with a plain (deferred) BEGIN. A deferred transaction that reads and
+     * then writes cannot wait for the write lock; it fails with SQLITE_BUSY
+     * as soon as another writer got there first. Taking the lock up front
+     * makes writers queue on the busy timeout instead. Read-only
+     * transactions, such as the Spring Data finders behind page reads, never
+     * take it, so under WAL they keep running alongside ingestion writes.
+     * The dialect is swapped in after initialization, since the transaction
+     * manager takes its dialect from the entity manager factory then.
+     */
+    @Bean
+    public static BeanPostProcessor sqliteTransactionModePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof JpaTransactionManager transactionManager)
+                    transactionManager.setJpaDialect(new SqliteJpaDialect());
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Hibernate dialect that picks the SQLite transaction mode per
+     * transaction. sqlite-jdbc issues its BEGIN when auto-commit is turned
+     * off, so the mode is set on the connection before Hibernate does that.
+     */
+    static class SqliteJpaDialect extends HibernateJpaDialect {
+
+        @Override
+        public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+                throws PersistenceException, SQLException, TransactionException {
+            Connection connection = entityManager.unwrap(SessionImplementor.class)
+                    .getJdbcCoordinator().getLogicalConnection().getPhysicalConnection();
+            if (connection.isWrapperFor(SQLiteConnection.class)) {
+                connection.unwrap(SQLiteConnection.class).getConnectionConfig().setTransactionMode(
+                        definition.isReadOnly() ? TransactionMode.DEFERRED : TransactionMode.IMMEDIATE);
+            }
+            return super.beginTransaction(entityManager, definition);
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.rem.reader.Config;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.rem.reader.Service.RequestTrace;
+import com.rem.reader.Service.RequestTraceService;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Configuration
+public class TracingConfig {
+
+    @Value("${reader.tracing.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Traces every API request. The filter runs first so the trace covers
+     * the session lookup, the controller and writing the response; finished
+     * traces go to the RequestTraceService, which keeps the slow ones. SQL
+     * spans come from the DataSource wrapper below.
+     */
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> requestTracingFilter(RequestTraceService requestTraceService) {
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(
+                new OncePerRequestFilter() {
+                    @Override
+                    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                            FilterChain chain) throws ServletException, IOException {
+                        RequestTrace.begin(request.getMethod(), request.getRequestURI());
+                        try {
+                            chain.doFilter(request, response);
+                        } finally {
+                            RequestTrace trace = RequestTrace.end(response.getStatus());
+                            if (trace != null)
+                                requestTraceService.record(trace);
+                        }
+                    }
+                });
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        registration.setEnabled(enabled);
+        return registration;
+    }
+
+    /**
+     * Wraps the DataSource so statements run for a traced request are
+     * recorded as SQL spans. Only connections taken while a request is being
+     * traced are proxied; ingestion, prefetch and the progress flush get the
+     * pool's connections untouched.
+     */
+    @Bean
+    public static BeanPostProcessor sqlTracingPostProcessor(
+            @Value("${reader.tracing.enabled:true}") boolean enabled) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (enabled && bean instanceof DataSource dataSource && !(bean instanceof SqlTracingDataSource))
+                    return new SqlTracingDataSource(dataSource);
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Marks where a controller's return value starts being serialized, so
+     * the time spent writing the response body shows up as its own span.
+     */
+    @ControllerAdvice
+    static class ResponseStartAdvice implements ResponseBodyAdvice<Object> {
+
+        @Override
+        public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+            return true;
+        }
+
+        @Override
+        public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+                ServerHttpResponse response) {
+            RequestTrace.markResponseStart();
+            return body;
+        }
+    }
+
+    /**
+     * DataSource that times the statement executions of traced requests.
+     * Connections are proxied when they are taken on a traced request
+     * thread, and each execution checks again that a trace is active.
+     */
+    static class SqlTracingDataSource extends DelegatingDataSource {
+
+        SqlTracingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return traced(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return traced(super.getConnection(username, password));
+        }
+
+        private static Connection traced(Connection connection) {
+            if (!RequestTrace.isActive())
+                return connection;
+
+            return (Connection) proxy(Connection.class, (method, args) -> {
+                Object result = method.invoke(connection, args);
+                if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                    // prepareStatement and prepareCall take the SQL up front; plain statements get it per execution
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                    return tracedStatement(method.getReturnType(), statement, sql);
+                }
+                return result;
+            });
+        }
+
+        private static Object tracedStatement(Class<?> type, Statement statement, String preparedSql) {
+            return proxy(type, (method, args) -> {
+                if (method.getName().startsWith("execute") && RequestTrace.isActive()) {
+                    String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : preparedSql;
+                    return traceExecution(statement, method, args, sql != null ? sql : method.getName());
+                }
+                return method.invoke(statement, args);
+            });
+        }
+
+        /**
+         * Runs a statement execution as a SQL span. SQLite only steps a query
+         * when its rows are read, so for queries the span lasts until the
+         * result set is closed and includes the time spent in next().
+         */
+        private static Object traceExecution(Statement statement, Method method, Object[] args, String sql)
+                throws Throwable {
+            long start = System.nanoTime();
+            Object result = null;
+            try {
+                result = method.invoke(statement, args);
+                return result instanceof ResultSet resultSet ? traceRows(resultSet, sql, start) : result;
+            } finally {
+                if (!(result instanceof ResultSet))
+                    RequestTrace.record(RequestTrace.SQL, sql, start, System.nanoTime() - start);
+            }
+        }
+
+        private static ResultSet traceRows(ResultSet resultSet, String sql, long start) {
+            long executed = System.nanoTime() - start;
+            RowTiming timing = new RowTiming();
+            return (ResultSet) proxy(ResultSet.class, (method, args) -> {
+                if (method.getName().equals("next")) {
+                    long from = System.nanoTime();
+                    try {
+                        return method.invoke(resultSet, args);
+                    } finally {
+                        timing.steppingNanos += System.nanoTime() - from;
+                    }
+                }
+                if (method.getName().equals("close") && !timing.closed) {
+                    timing.closed = true;
+                    RequestTrace.record(RequestTrace.SQL, sql, start, executed + timing.steppingNanos);
+                }
+                return method.invoke(resultSet, args);
+            });
+        }
+
+        private static Object proxy(Class<?> type, Invocation invocation) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+                if (method.getName().equals("equals") && method.getParameterCount() == 1)
+                    return proxy == args[0];
+                if (method.getName().equals("hashCode") && method.getParameterCount() == 0)
+                    return System.identityHashCode(proxy);
+                try {
+                    return invocation.invoke(method, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            });
+        }
+
+        private interface Invocation {
+            Object invoke(Method method, Object[] args) throws Throwable;
+        }
+
+        // Result sets are read on one thread, the one that owns the trace
+        private static final class RowTiming {
+            long steppingNanos;
+            boolean closed;
+        }
+    }
+}
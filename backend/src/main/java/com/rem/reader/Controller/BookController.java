@@ -15,8 +15,11 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.rem.reader.DTO.EditBookRequestDTO;
+import com.rem.reader.Service.BookSearchService;
 import com.rem.reader.Service.BookService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
 @RestController
@@ -26,6 +29,9 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
+    @Autowired
+    private BookSearchService bookSearchService;
+
     @PostMapping("/upload")
     public ResponseEntity<?> uploadBook(@RequestParam("file") MultipartFile file) {
         return bookService.uploadBook(file);
@@ -47,8 +53,35 @@ public class BookController {
     }
     
     @GetMapping("/{uuid}/cover")
-    public ResponseEntity<?> getBookCover(@PathVariable UUID uuid) {
-        return bookService.getBookCover(uuid);
+    public ResponseEntity<?> getBookCover(@PathVariable UUID uuid, @RequestParam(required = false) Integer size,
+            HttpServletRequest request, HttpServletResponse response) {
+        return bookService.getBookCover(uuid, size, request, response);
+    }
+
+    @GetMapping("/{uuid}/download")
+    public ResponseEntity<?> downloadBook(@PathVariable UUID uuid, HttpServletRequest request,
+            HttpServletResponse response) {
+        return bookService.downloadBook(uuid, request, response);
+    }
+
+    @GetMapping
+    public ResponseEntity<?> getLibraryPage(@RequestParam(defaultValue = "uploaded_at") String sort,
+            @RequestParam(defaultValue = "asc") String direction, @RequestParam(defaultValue = "all") String filter,
+            @RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit,
+            HttpSession session) {
+        return bookService.getLibraryPage(sort, direction, filter, cursor, limit, session);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<?> searchBooks(@RequestParam String q, @RequestParam(required = false) UUID book,
+            @RequestParam(required = false) Integer limit) {
+        return bookSearchService.search(q, book, limit);
+    }
+
+    @GetMapping("/{uuid}/search")
+    public ResponseEntity<?> searchBook(@PathVariable UUID uuid, @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return bookSearchService.search(q, uuid, limit);
     }
 
     @GetMapping("/all")
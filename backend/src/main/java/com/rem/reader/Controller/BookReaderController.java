@@ -3,14 +3,19 @@ package com.rem.reader.Controller;
 import java.util.UUID;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.rem.reader.Service.BookReaderService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
 @RestController
@@ -20,13 +25,32 @@ public class BookReaderController {
     @Autowired
     BookReaderService bookReaderService;
 
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getPageCacheStats(HttpSession session) {
+        return bookReaderService.getPageCacheStats(session);
+    }
+
+    @GetMapping("/storage/stats")
+    public ResponseEntity<?> getPageStorageStats(HttpSession session) {
+        return bookReaderService.getPageStorageStats(session);
+    }
+
+    @GetMapping("/{uuid}/range")
+    public ResponseEntity<?> getBookPageRange(@PathVariable UUID uuid, @RequestParam int from,
+            @RequestParam(defaultValue = "10") int count, HttpSession session) {
+        return bookReaderService.getBookPageRange(uuid, from, count, session);
+    }
+
     @GetMapping("/{uuid}/{pages}")
-    public ResponseEntity<?> getBookPages(@PathVariable UUID uuid, @PathVariable int pages, HttpSession session) {
-        return bookReaderService.getBookPages(uuid, pages, session);
+    public ResponseEntity<?> getBookPages(@PathVariable UUID uuid, @PathVariable int pages,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            HttpSession session) {
+        return bookReaderService.getBookPages(uuid, pages, acceptEncoding, session);
     }
 
     @GetMapping("/{uuid}/assets/{filename}")
-    public ResponseEntity<?> getCurrentBookAsset(@PathVariable UUID uuid, @PathVariable String filename) {
-        return bookReaderService.getCurrentBookAsset(uuid, filename);
+    public ResponseEntity<?> getCurrentBookAsset(@PathVariable UUID uuid, @PathVariable String filename,
+            HttpServletRequest request, HttpServletResponse response) {
+        return bookReaderService.getCurrentBookAsset(uuid, filename, request, response);
     }
 }
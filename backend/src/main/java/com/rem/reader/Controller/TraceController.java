@@ -0,0 +1,24 @@
+package com.rem.reader.Controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.rem.reader.Service.RequestTraceService;
+
+import jakarta.servlet.http.HttpSession;
+
+@RestController
+@RequestMapping("/api/traces")
+public class TraceController {
+
+    @Autowired
+    private RequestTraceService requestTraceService;
+
+    @GetMapping("/slow")
+    public ResponseEntity<?> getSlowRequests(HttpSession session) {
+        return requestTraceService.getSlowRequests(session);
+    }
+}
@@ -0,0 +1,39 @@
+package com.rem.reader.DTO;
+
+import java.util.UUID;
+
+public class BookListItemDTO {
+    private UUID uuid;
+    private String title;
+    private String author;
+    private int pages;
+    private Integer currentPageNumber;
+    private Boolean favorite;
+
+    public BookListItemDTO(UUID uuid, String title, String author, int pages, Integer currentPageNumber, Boolean favorite) {
+        this.uuid = uuid;
+        this.title = title;
+        this.author = author;
+        this.pages = pages;
+        this.currentPageNumber = currentPageNumber;
+        this.favorite = favorite;
+    }
+
+    public UUID getUuid() { return uuid; }
+    public void setUuid(UUID uuid) { this.uuid = uuid; }
+
+    public String getTitle() { return title; }
+    public void setTitle(String title) { this.title = title; }
+
+    public String getAuthor() { return author; }
+    public void setAuthor(String author) { this.author = author; }
+
+    public int getPages() { return pages; }
+    public void setPages(int pages) { this.pages = pages; }
+
+    public Integer getCurrentPageNumber() { return currentPageNumber; }
+    public void setCurrentPageNumber(Integer currentPageNumber) { this.currentPageNumber = currentPageNumber; }
+
+    public Boolean getFavorite() { return favorite; }
+    public void setFavorite(Boolean favorite) { this.favorite = favorite; }
+}
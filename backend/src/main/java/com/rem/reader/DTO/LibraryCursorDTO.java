@@ -0,0 +1,28 @@
+package com.rem.reader.DTO;
+
+/**
+ * Position of the last entry of a library page: the value of its sort column
+ * and the row id that breaks ties. Sorting by last read walks the books the
+ * user has read first and the unread ones after them, so the cursor also
+ * records which of the two it is in.
+ */
+public class LibraryCursorDTO {
+    private Object value;
+    private long id;
+    private boolean unread;
+
+    public LibraryCursorDTO(Object value, long id, boolean unread) {
+        this.value = value;
+        this.id = id;
+        this.unread = unread;
+    }
+
+    public Object getValue() { return value; }
+    public void setValue(Object value) { this.value = value; }
+
+    public long getId() { return id; }
+    public void setId(long id) { this.id = id; }
+
+    public boolean isUnread() { return unread; }
+    public void setUnread(boolean unread) { this.unread = unread; }
+}
@@ -0,0 +1,28 @@
+package com.rem.reader.DTO;
+
+public enum LibraryFilter {
+    ALL("all"),
+    FAVORITES("favorites"),
+    IN_PROGRESS("in-progress");
+
+    private final String param;
+
+    LibraryFilter(String param) {
+        this.param = param;
+    }
+
+    public String getParam() { return param; }
+
+    /**
+     * Find the filter named by a request parameter.
+     * @param param The parameter value, e.g. in-progress.
+     * @return The filter, or null if the name is unknown.
+     */
+    public static LibraryFilter fromParam(String param) {
+        for (LibraryFilter filter : values()) {
+            if (filter.param.equalsIgnoreCase(param))
+                return filter;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.rem.reader.DTO;
+
+import java.util.List;
+
+public class LibraryPageDTO {
+    private List<BookListItemDTO> books;
+    private LibraryCursorDTO nextCursor;
+
+    public LibraryPageDTO(List<BookListItemDTO> books, LibraryCursorDTO nextCursor) {
+        this.books = books;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<BookListItemDTO> getBooks() { return books; }
+    public void setBooks(List<BookListItemDTO> books) { this.books = books; }
+
+    public LibraryCursorDTO getNextCursor() { return nextCursor; }
+    public void setNextCursor(LibraryCursorDTO nextCursor) { this.nextCursor = nextCursor; }
+}
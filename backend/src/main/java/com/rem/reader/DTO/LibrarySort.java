@@ -0,0 +1,29 @@
+package com.rem.reader.DTO;
+
+public enum LibrarySort {
+    TITLE("title"),
+    AUTHOR("author"),
+    UPLOADED_AT("uploaded_at"),
+    LAST_READ("last_read");
+
+    private final String param;
+
+    LibrarySort(String param) {
+        this.param = param;
+    }
+
+    public String getParam() { return param; }
+
+    /**
+     * Find the sort key named by a request parameter.
+     * @param param The parameter value, e.g. uploaded_at.
+     * @return The sort key, or null if the name is unknown.
+     */
+    public static LibrarySort fromParam(String param) {
+        for (LibrarySort sort : values()) {
+            if (sort.param.equalsIgnoreCase(param))
+                return sort;
+        }
+        return null;
+    }
+}
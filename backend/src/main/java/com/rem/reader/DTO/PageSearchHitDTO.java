@@ -0,0 +1,29 @@
+package com.rem.reader.DTO;
+
+import java.util.UUID;
+
+public class PageSearchHitDTO {
+    private UUID bookUuid;
+    private int pageNumber;
+    private String snippet;
+    private double rank;
+
+    public PageSearchHitDTO(UUID bookUuid, int pageNumber, String snippet, double rank) {
+        this.bookUuid = bookUuid;
+        this.pageNumber = pageNumber;
+        this.snippet = snippet;
+        this.rank = rank;
+    }
+
+    public UUID getBookUuid() { return bookUuid; }
+    public void setBookUuid(UUID bookUuid) { this.bookUuid = bookUuid; }
+
+    public int getPageNumber() { return pageNumber; }
+    public void setPageNumber(int pageNumber) { this.pageNumber = pageNumber; }
+
+    public String getSnippet() { return snippet; }
+    public void setSnippet(String snippet) { this.snippet = snippet; }
+
+    public double getRank() { return rank; }
+    public void setRank(double rank) { this.rank = rank; }
+}
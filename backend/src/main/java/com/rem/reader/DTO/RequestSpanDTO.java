@@ -0,0 +1,27 @@
+package com.rem.reader.DTO;
+
+public class RequestSpanDTO {
+    private String category;
+    private String name;
+    private double offsetMillis;
+    private double durationMillis;
+
+    public RequestSpanDTO(String category, String name, double offsetMillis, double durationMillis) {
+        this.category = category;
+        this.name = name;
+        this.offsetMillis = offsetMillis;
+        this.durationMillis = durationMillis;
+    }
+
+    public String getCategory() { return category; }
+    public void setCategory(String category) { this.category = category; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public double getOffsetMillis() { return offsetMillis; }
+    public void setOffsetMillis(double offsetMillis) { this.offsetMillis = offsetMillis; }
+
+    public double getDurationMillis() { return durationMillis; }
+    public void setDurationMillis(double durationMillis) { this.durationMillis = durationMillis; }
+}
@@ -0,0 +1,57 @@
+package com.rem.reader.DTO;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+public class SlowRequestDTO {
+    private Instant startedAt;
+    private String method;
+    private String path;
+    private int status;
+    private double durationMillis;
+    private int sqlStatements;
+    private Map<String, Double> breakdownMillis;
+    private List<RequestSpanDTO> spans;
+    private int droppedSpans;
+
+    public SlowRequestDTO(Instant startedAt, String method, String path, int status, double durationMillis,
+            int sqlStatements, Map<String, Double> breakdownMillis, List<RequestSpanDTO> spans, int droppedSpans) {
+        this.startedAt = startedAt;
+        this.method = method;
+        this.path = path;
+        this.status = status;
+        this.durationMillis = durationMillis;
+        this.sqlStatements = sqlStatements;
+        this.breakdownMillis = breakdownMillis;
+        this.spans = spans;
+        this.droppedSpans = droppedSpans;
+    }
+
+    public Instant getStartedAt() { return startedAt; }
+    public void setStartedAt(Instant startedAt) { this.startedAt = startedAt; }
+
+    public String getMethod() { return method; }
+    public void setMethod(String method) { this.method = method; }
+
+    public String getPath() { return path; }
+    public void setPath(String path) { this.path = path; }
+
+    public int getStatus() { return status; }
+    public void setStatus(int status) { this.status = status; }
+
+    public double getDurationMillis() { return durationMillis; }
+    public void setDurationMillis(double durationMillis) { this.durationMillis = durationMillis; }
+
+    public int getSqlStatements() { return sqlStatements; }
+    public void setSqlStatements(int sqlStatements) { this.sqlStatements = sqlStatements; }
+
+    public Map<String, Double> getBreakdownMillis() { return breakdownMillis; }
+    public void setBreakdownMillis(Map<String, Double> breakdownMillis) { this.breakdownMillis = breakdownMillis; }
+
+    public List<RequestSpanDTO> getSpans() { return spans; }
+    public void setSpans(List<RequestSpanDTO> spans) { this.spans = spans; }
+
+    public int getDroppedSpans() { return droppedSpans; }
+    public void setDroppedSpans(int droppedSpans) { this.droppedSpans = droppedSpans; }
+}
@@ -5,13 +5,25 @@ import java.util.UUID;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "book") 
+@Table(
+    name = "book",
+    indexes = {
+        @Index(name = "idx_book_uuid", columnList = "UUID"),
+        @Index(name = "idx_book_content_hash", columnList = "content_hash"),
+        @Index(name = "idx_book_title", columnList = "title, id"),
+        @Index(name = "idx_book_author", columnList = "author, id"),
+        @Index(name = "idx_book_uploaded_at", columnList = "uploaded_at, id")
+    }
+)
 public class Book {
 
     @Id
@@ -43,6 +55,13 @@ public class Book {
     @Column(name = "cover_image_path")
     private String coverImagePath;
 
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "ingestion_state")
+    private IngestionState ingestionState;
+
 
     // Getters
     public long getId() { return id; }
@@ -70,4 +89,10 @@ public class Book {
 
     public void setCoverImagePath(String coverImagePath) { this.coverImagePath = coverImagePath; }
     public String getCoverImagePath() { return coverImagePath; }
+
+    public void setIngestionState(IngestionState ingestionState) { this.ingestionState = ingestionState; }
+    public IngestionState getIngestionState() { return ingestionState; }
+
+    public void setContentHash(String contentHash) { this.contentHash = contentHash; }
+    public String getContentHash() { return contentHash; }
 }
@@ -1,9 +1,13 @@
 package com.rem.reader.Models;
 
 import java.util.UUID;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.*;
 
 @Entity
+@EntityListeners(BookPageContentListener.class)
 @Table(
     name = "book_page_cache",
     indexes = {
@@ -27,9 +31,24 @@ public class BookPageCache {
     @Column(name = "page_number")
     private int pageNumber;
 
+    // Plain text content of pages written before compression; null once migrated
     @Column(name = "content")
+    private String legacyContent;
+
+    @Column(name = "content_deflate")
+    private byte[] compressedContent;
+
+    @Column(name = "content_length")
+    private Integer contentLength;
+
+    // Decoded content, filled in on load by BookPageContentListener
+    @Transient
     private String content;
 
+    // Plain text of the page for the search index, set during ingestion only
+    @Transient
+    private String searchText;
+
     
     // Getters and Setters
     public Long getId() { return id; }
@@ -46,4 +65,20 @@ public class BookPageCache {
 
     public String getContent() { return content; }
     public void setContent(String content) { this.content = content; }
+
+    @JsonIgnore
+    public String getSearchText() { return searchText; }
+    public void setSearchText(String searchText) { this.searchText = searchText; }
+
+    @JsonIgnore
+    public String getLegacyContent() { return legacyContent; }
+    public void setLegacyContent(String legacyContent) { this.legacyContent = legacyContent; }
+
+    @JsonIgnore
+    public byte[] getCompressedContent() { return compressedContent; }
+    public void setCompressedContent(byte[] compressedContent) { this.compressedContent = compressedContent; }
+
+    @JsonIgnore
+    public Integer getContentLength() { return contentLength; }
+    public void setContentLength(Integer contentLength) { this.contentLength = contentLength; }
 }
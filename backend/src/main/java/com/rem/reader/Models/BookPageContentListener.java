@@ -0,0 +1,31 @@
+package com.rem.reader.Models;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import com.rem.reader.Service.PageCompressionService;
+
+import jakarta.persistence.PostLoad;
+
+/**
+ * Decodes page content as pages are loaded, so callers of BookPageCacheRepo
+ * always see plain HTML whether the row is compressed or not.
+ */
+@Component
+public class BookPageContentListener {
+
+    @Autowired
+    @Lazy
+    PageCompressionService pageCompressionService;
+
+    @PostLoad
+    public void decode(BookPageCache page) {
+        if (page.getCompressedContent() != null) {
+            page.setContent(pageCompressionService.decompress(
+                    page.getBookId(), page.getCompressedContent(), page.getContentLength()));
+        } else {
+            page.setContent(page.getLegacyContent());
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.rem.reader.Models;
+
+import java.util.UUID;
+
+import jakarta.persistence.*;
+
+@Entity
+@Table(
+    name = "book_page_dictionary",
+    indexes = {
+        @Index(name = "idx_dictionary_book", columnList = "book_uuid", unique = true)
+    }
+)
+public class BookPageDictionary {
+
+    @Id
+    @Column(name = "id")
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "book_uuid")
+    private UUID bookId;
+
+    @Column(name = "dictionary")
+    private byte[] dictionary;
+
+
+    // Getters and Setters
+    public Long getId() { return id; }
+
+    public UUID getBookId() { return bookId; }
+    public void setBookId(UUID bookId) { this.bookId = bookId; }
+
+    public byte[] getDictionary() { return dictionary; }
+    public void setDictionary(byte[] dictionary) { this.dictionary = dictionary; }
+}
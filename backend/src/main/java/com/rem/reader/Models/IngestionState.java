@@ -0,0 +1,11 @@
+package com.rem.reader.Models;
+
+/**
+ * Lifecycle of a book's background pagination.
+ */
+public enum IngestionState {
+    QUEUED,
+    RUNNING,
+    DONE,
+    FAILED
+}
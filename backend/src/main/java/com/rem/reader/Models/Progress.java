@@ -8,10 +8,17 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "progress")
+@Table(
+    name = "progress",
+    indexes = {
+        @Index(name = "idx_progress_account_book", columnList = "account_uuid, book_uuid"),
+        @Index(name = "idx_progress_account_last_read", columnList = "account_uuid, last_read, id")
+    }
+)
 public class Progress {
 
     @Id
@@ -3,8 +3,6 @@ package com.rem.reader.Repo;
 import java.util.List;
 import java.util.UUID;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -13,7 +11,7 @@ import com.rem.reader.Models.BookPageCache;
 
 import jakarta.transaction.Transactional;
 
-public interface BookPageCacheRepo extends JpaRepository<BookPageCache, Long> {
+public interface BookPageCacheRepo extends JpaRepository<BookPageCache, Long>, BookPageCacheRepoCustom {
 
     /**
      * Find all book page cache entries by book ID, ordered by page number in ascending order.
@@ -24,18 +22,22 @@ public interface BookPageCacheRepo extends JpaRepository<BookPageCache, Long> {
 
     /**
      * Find a book page cache entry by book ID and page number.
+     * Served by the idx_book_page index, so the cost does not depend on the page number.
      * @param bookId The UUID of the book.
      * @param pageNumber The page number of the book.
+     * @return The BookPageCache entity if found, otherwise null.
      */
     BookPageCache findByBookIdAndPageNumber(UUID bookId, int pageNumber);
 
     /**
-     * Find a paginated list of book pages for a given book ID, ordered by page number.
+     * Find a contiguous range of pages for a given book ID, ordered by page number.
+     * Served as a single range scan on the idx_book_page index.
      * @param bookId The UUID of the book.
-     * @param pageable The pagination information.
-     * @return A paginated list of BookPageCache entities.
+     * @param fromPage The first page number, inclusive.
+     * @param toPage The last page number, inclusive.
+     * @return A list of BookPageCache entities.
      */
-    Page<BookPageCache> findByBookIdOrderByPageNumberAsc(UUID bookId, Pageable pageable);
+    List<BookPageCache> findByBookIdAndPageNumberBetweenOrderByPageNumberAsc(UUID bookId, int fromPage, int toPage);
 
     /**
      * Count the number of pages for a given book ID.
@@ -0,0 +1,110 @@
+package com.rem.reader.Repo;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import com.rem.reader.DTO.PageSearchHitDTO;
+import com.rem.reader.Models.BookPageCache;
+
+public interface BookPageCacheRepoCustom {
+
+    /**
+     * Insert a chunk of pages with a single JDBC batch in its own short transaction.
+     * Pages with search text are added to the search index in the same transaction.
+     * @param pages The pages to insert, with their content already compressed.
+     */
+    void insertBatch(List<BookPageCache> pages);
+
+    /**
+     * Find the compression dictionary of a book without going through the entity manager,
+     * so it can be called while pages are being loaded.
+     * @param bookId The UUID of the book.
+     * @return The dictionary bytes, or null if the book has none.
+     */
+    byte[] findDictionary(UUID bookId);
+
+    /**
+     * Store the compression dictionary of a book, replacing the one it has.
+     * @param bookId The UUID of the book.
+     * @param dictionary The dictionary bytes.
+     */
+    void saveDictionary(UUID bookId, byte[] dictionary);
+
+    /**
+     * Make book_uuid unique in the dictionary table of a database created
+     * before it was. Books that ended up with more than one dictionary lose
+     * all of them, since their pages may have been compressed with either.
+     * @return The UUIDs of the books whose dictionaries were removed.
+     */
+    List<UUID> makeDictionariesUnique();
+
+    /**
+     * Drop the response_gzip column from a database created while gzipped
+     * page responses were stored. Hibernate never drops columns itself.
+     * @return true if the column existed and was dropped, otherwise false.
+     */
+    boolean dropResponseGzipColumn();
+
+    /**
+     * Find the IDs of books that still have pages stored as plain text.
+     * @return A list of book UUIDs.
+     */
+    List<UUID> findBookIdsWithLegacyContent();
+
+    /**
+     * Find a chunk of a book's pages that are still stored as plain text.
+     * Only the ID, book ID, page number and content are filled in.
+     * @param bookId The UUID of the book.
+     * @param limit The maximum number of pages to return.
+     * @return A list of BookPageCache entities, not attached to the entity manager.
+     */
+    List<BookPageCache> findLegacyPages(UUID bookId, int limit);
+
+    /**
+     * Replace the plain text content of pages with their compressed form in one transaction.
+     * @param pages The pages to update, with their content already compressed.
+     */
+    void updateCompressedContent(List<BookPageCache> pages);
+
+    /**
+     * Sum the stored and uncompressed sizes of all page content.
+     * @return A map with the page counts and byte totals.
+     */
+    Map<String, Object> sumContentSizes();
+
+    /**
+     * Create the full-text search index if it does not exist yet. It is an FTS5
+     * virtual table, which Hibernate cannot create.
+     */
+    void createSearchIndex();
+
+    /**
+     * Add the search text of pages to the search index in one transaction.
+     * @param pages The pages to index, with their search text set.
+     */
+    void insertSearchText(List<BookPageCache> pages);
+
+    /**
+     * Remove all pages of a book from the search index.
+     * @param bookId The UUID of the book.
+     */
+    void deleteSearchText(UUID bookId);
+
+    /**
+     * Check whether any page of a book is in the search index.
+     * @param bookId The UUID of the book.
+     * @return true if the book is indexed, otherwise false.
+     */
+    boolean hasSearchText(UUID bookId);
+
+    /**
+     * Run a full-text query against the search index, best matches first.
+     * @param terms The FTS5 query over the page text.
+     * @param bookId The UUID of the book to search in, or null to search every book.
+     * @param limit The maximum number of hits to return.
+     * @return The matching pages with a snippet around the match; matched terms are
+     *         wrapped in STX and ETX characters.
+     */
+    List<PageSearchHitDTO> searchPages(String terms, UUID bookId, int limit);
+}
@@ -0,0 +1,318 @@
+package com.rem.reader.Repo;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.rem.reader.DTO.PageSearchHitDTO;
+import com.rem.reader.Models.BookPageCache;
+
+public class BookPageCacheRepoCustomImpl implements BookPageCacheRepoCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String INSERT_PAGE =
+            "INSERT INTO book_page_cache (book_uuid, page_number, title, content_deflate, content_length) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String INSERT_SEARCH_TEXT =
+            "INSERT INTO book_page_search (book, page_number, text) VALUES (?, ?, ?)";
+
+    private static final String UPSERT_DICTIONARY =
+            "INSERT OR REPLACE INTO book_page_dictionary (book_uuid, dictionary) VALUES (?, ?)";
+
+    private static final String UPDATE_CONTENT =
+            "UPDATE book_page_cache SET content_deflate = ?, content_length = ?, content = NULL WHERE id = ?";
+
+    /**
+     * Insert a chunk of pages with a single JDBC batch. Hibernate cannot batch
+     * IDENTITY inserts, so this bypasses the entity manager entirely.
+     * @param pages The pages to insert, with their content already compressed.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void insertBatch(List<BookPageCache> pages) {
+        jdbcTemplate.batchUpdate(INSERT_PAGE, pages, pages.size(), (ps, page) -> {
+            ps.setBytes(1, toBytes(page.getBookId()));
+            ps.setInt(2, page.getPageNumber());
+            ps.setString(3, page.getTitle());
+            ps.setBytes(4, page.getCompressedContent());
+            ps.setInt(5, page.getContentLength());
+        });
+        batchInsertSearchText(pages);
+    }
+
+    /**
+     * Find the compression dictionary of a book.
+     * @param bookId The UUID of the book.
+     * @return The dictionary bytes, or null if the book has none.
+     */
+    @Override
+    public byte[] findDictionary(UUID bookId) {
+        List<byte[]> found = jdbcTemplate.query(
+                "SELECT dictionary FROM book_page_dictionary WHERE book_uuid = ? LIMIT 1",
+                (rs, row) -> rs.getBytes(1),
+                (Object) toBytes(bookId));
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /**
+     * Store the compression dictionary of a book. The unique index on
+     * book_uuid makes the insert replace any dictionary the book already has.
+     * @param bookId The UUID of the book.
+     * @param dictionary The dictionary bytes.
+     */
+    @Override
+    public void saveDictionary(UUID bookId, byte[] dictionary) {
+        jdbcTemplate.update(UPSERT_DICTIONARY, toBytes(bookId), dictionary);
+    }
+
+    /**
+     * Make book_uuid unique in the dictionary table. Hibernate does not
+     * change an index that already exists, so an older non-unique index is
+     * dropped and recreated as unique here, once the duplicates are gone.
+     * @return The UUIDs of the books whose dictionaries were removed.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<UUID> makeDictionariesUnique() {
+        Boolean unique = jdbcTemplate.query("PRAGMA index_list(book_page_dictionary)",
+                rs -> {
+                    while (rs.next())
+                        if ("idx_dictionary_book".equals(rs.getString("name")))
+                            return rs.getInt("unique") == 1;
+                    return false;
+                });
+        if (Boolean.TRUE.equals(unique))
+            return List.of();
+
+        List<UUID> duplicated = jdbcTemplate.query(
+                "SELECT book_uuid FROM book_page_dictionary GROUP BY book_uuid HAVING COUNT(*) > 1",
+                (rs, row) -> fromBytes(rs.getBytes(1)));
+        for (UUID bookId : duplicated)
+            jdbcTemplate.update("DELETE FROM book_page_dictionary WHERE book_uuid = ?", (Object) toBytes(bookId));
+
+        jdbcTemplate.execute("DROP INDEX IF EXISTS idx_dictionary_book");
+        jdbcTemplate.execute("CREATE UNIQUE INDEX idx_dictionary_book ON book_page_dictionary (book_uuid)");
+        return duplicated;
+    }
+
+    /**
+     * Drop the response_gzip column if the table still has it. SQLite rewrites
+     * the table to drop a column, so this takes a while on a large library.
+     * @return true if the column existed and was dropped, otherwise false.
+     */
+    @Override
+    public boolean dropResponseGzipColumn() {
+        List<String> columns = jdbcTemplate.query("PRAGMA table_info(book_page_cache)",
+                (rs, row) -> rs.getString("name"));
+        if (!columns.contains("response_gzip"))
+            return false;
+
+        jdbcTemplate.execute("ALTER TABLE book_page_cache DROP COLUMN response_gzip");
+        return true;
+    }
+
+    /**
+     * Find the IDs of books that still have pages stored as plain text.
+     * @return A list of book UUIDs.
+     */
+    @Override
+    public List<UUID> findBookIdsWithLegacyContent() {
+        return jdbcTemplate.query(
+                "SELECT DISTINCT book_uuid FROM book_page_cache WHERE content IS NOT NULL AND content_deflate IS NULL",
+                (rs, row) -> fromBytes(rs.getBytes(1)));
+    }
+
+    /**
+     * Find a chunk of a book's pages that are still stored as plain text.
+     * @param bookId The UUID of the book.
+     * @param limit The maximum number of pages to return.
+     * @return A list of BookPageCache entities, not attached to the entity manager.
+     */
+    @Override
+    public List<BookPageCache> findLegacyPages(UUID bookId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, page_number, content FROM book_page_cache "
+                        + "WHERE book_uuid = ? AND content IS NOT NULL AND content_deflate IS NULL "
+                        + "ORDER BY page_number LIMIT ?",
+                (rs, row) -> {
+                    BookPageCache page = new BookPageCache();
+                    page.setId(rs.getLong(1));
+                    page.setBookId(bookId);
+                    page.setPageNumber(rs.getInt(2));
+                    page.setContent(rs.getString(3));
+                    return page;
+                },
+                toBytes(bookId), limit);
+    }
+
+    /**
+     * Replace the plain text content of pages with their compressed form in one transaction.
+     * @param pages The pages to update, with their content already compressed.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void updateCompressedContent(List<BookPageCache> pages) {
+        jdbcTemplate.batchUpdate(UPDATE_CONTENT, pages, pages.size(), (ps, page) -> {
+            ps.setBytes(1, page.getCompressedContent());
+            ps.setInt(2, page.getContentLength());
+            ps.setLong(3, page.getId());
+        });
+    }
+
+    /**
+     * Sum the stored and uncompressed sizes of all page content.
+     * @return A map with the page counts and byte totals.
+     */
+    @Override
+    public Map<String, Object> sumContentSizes() {
+        return jdbcTemplate.queryForMap(
+                "SELECT COUNT(content_deflate) AS compressedPages, "
+                        + "COUNT(content) AS plainPages, "
+                        + "COALESCE(SUM(content_length), 0) AS uncompressedBytes, "
+                        + "COALESCE(SUM(length(content_deflate)), 0) AS compressedBytes "
+                        + "FROM book_page_cache");
+    }
+
+    /**
+     * Create the FTS5 search index. The book column holds the book UUID as a
+     * single hex token so a query can be narrowed to one book through the
+     * index itself; the page number is stored but not indexed.
+     */
+    @Override
+    public void createSearchIndex() {
+        jdbcTemplate.execute("CREATE VIRTUAL TABLE IF NOT EXISTS book_page_search USING fts5("
+                + "book, page_number UNINDEXED, text, tokenize = 'unicode61 remove_diacritics 2')");
+    }
+
+    /**
+     * Add the search text of pages to the search index.
+     * @param pages The pages to index, with their search text set.
+     */
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void insertSearchText(List<BookPageCache> pages) {
+        batchInsertSearchText(pages);
+    }
+
+    /**
+     * Remove all pages of a book from the search index. The rows are found with
+     * a match on the book column; a plain WHERE on an FTS5 column scans the table.
+     * @param bookId The UUID of the book.
+     */
+    @Override
+    @Transactional
+    public void deleteSearchText(UUID bookId) {
+        jdbcTemplate.update(
+                "DELETE FROM book_page_search WHERE rowid IN "
+                        + "(SELECT rowid FROM book_page_search WHERE book_page_search MATCH ?)",
+                bookMatch(bookId));
+    }
+
+    /**
+     * Check whether any page of a book is in the search index.
+     * @param bookId The UUID of the book.
+     * @return true if the book is indexed, otherwise false.
+     */
+    @Override
+    public boolean hasSearchText(UUID bookId) {
+        return !jdbcTemplate.queryForList(
+                "SELECT rowid FROM book_page_search WHERE book_page_search MATCH ? LIMIT 1",
+                Long.class, bookMatch(bookId)).isEmpty();
+    }
+
+    /**
+     * Run a full-text query against the search index, ranked by BM25.
+     * @param terms The FTS5 query over the page text.
+     * @param bookId The UUID of the book to search in, or null to search every book.
+     * @param limit The maximum number of hits to return.
+     * @return The matching pages with a snippet around the match.
+     */
+    @Override
+    public List<PageSearchHitDTO> searchPages(String terms, UUID bookId, int limit) {
+        String match = "text : (" + terms + ")";
+        if (bookId != null)
+            match = bookMatch(bookId) + " AND " + match;
+
+        return jdbcTemplate.query(
+                "SELECT book, page_number, snippet(book_page_search, 2, char(2), char(3), '\u2026', 16), rank "
+                        + "FROM book_page_search WHERE book_page_search MATCH ? ORDER BY rank LIMIT ?",
+                (rs, row) -> new PageSearchHitDTO(
+                        fromSearchKey(rs.getString(1)), rs.getInt(2), rs.getString(3), rs.getDouble(4)),
+                match, limit);
+    }
+
+    /**
+     * Insert the search text of the pages that have one.
+     * @param pages The pages to index.
+     */
+    private void batchInsertSearchText(List<BookPageCache> pages) {
+        List<BookPageCache> searchable = pages.stream()
+                .filter(page -> page.getSearchText() != null && !page.getSearchText().isBlank())
+                .toList();
+        if (searchable.isEmpty())
+            return;
+
+        jdbcTemplate.batchUpdate(INSERT_SEARCH_TEXT, searchable, searchable.size(), (ps, page) -> {
+            ps.setString(1, searchKey(page.getBookId()));
+            ps.setInt(2, page.getPageNumber());
+            ps.setString(3, page.getSearchText());
+        });
+    }
+
+    /**
+     * Build the FTS5 query that matches every indexed page of a book.
+     * @param bookId The UUID of the book.
+     * @return The query.
+     */
+    private static String bookMatch(UUID bookId) {
+        return "book : \"" + searchKey(bookId) + "\"";
+    }
+
+    /**
+     * Converts a UUID to the token stored in the book column of the search index.
+     * @param uuid The UUID to convert.
+     * @return The UUID as 32 hex digits.
+     */
+    private static String searchKey(UUID uuid) {
+        return uuid.toString().replace("-", "");
+    }
+
+    /**
+     * Converts a book column token of the search index back to a UUID.
+     * @param key The 32 hex digits.
+     * @return The UUID.
+     */
+    private static UUID fromSearchKey(String key) {
+        return new UUID(Long.parseUnsignedLong(key.substring(0, 16), 16), Long.parseUnsignedLong(key.substring(16), 16));
+    }
+
+    /**
+     * Converts a UUID to the 16-byte big-endian form Hibernate stores in blob columns.
+     * @param uuid The UUID to convert.
+     * @return The UUID as bytes.
+     */
+    static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+
+    /**
+     * Converts the 16-byte blob form of a UUID back to a UUID.
+     * @param bytes The UUID as bytes.
+     * @return The UUID.
+     */
+    static UUID fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+}
@@ -0,0 +1,23 @@
+package com.rem.reader.Repo;
+
+import java.util.UUID;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import com.rem.reader.Models.BookPageDictionary;
+
+import jakarta.transaction.Transactional;
+
+public interface BookPageDictionaryRepo extends JpaRepository<BookPageDictionary, Long> {
+
+    /**
+     * Delete the compression dictionary of a given book ID.
+     * @param bookId The UUID of the book.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM book_page_dictionary WHERE book_uuid = ?1", nativeQuery = true)
+    void deleteByBookUuid(UUID bookId);
+}
@@ -1,5 +1,6 @@
 package com.rem.reader.Repo;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -7,11 +8,13 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import com.rem.reader.DTO.BookListItemDTO;
 import com.rem.reader.Models.Book;
+import com.rem.reader.Models.IngestionState;
 
 import jakarta.transaction.Transactional;
 
-public interface BookRepo extends JpaRepository<Book, Long> {
+public interface BookRepo extends JpaRepository<Book, Long>, BookRepoCustom {
 
     /**
      * Find a book by its UUID.
@@ -21,6 +24,40 @@ public interface BookRepo extends JpaRepository<Book, Long> {
      */
     Book findByUuid(UUID uuid);
 
+    /**
+     * Find the books with the given UUIDs.
+     * 
+     * @param uuids The UUIDs of the books to find.
+     * @return A list of the Book entities found, in no particular order.
+     */
+    List<Book> findByUuidIn(Collection<UUID> uuids);
+
+    /**
+     * Find a book by the SHA-256 of its EPUB file.
+     * 
+     * @param contentHash The hex-encoded SHA-256 of the file.
+     * @return The first matching Book entity, otherwise null.
+     */
+    Book findFirstByContentHash(String contentHash);
+
+    /**
+     * Find all books whose content hash has not been computed yet.
+     * 
+     * @return A list of Book entities without a content hash.
+     */
+    List<Book> findByContentHashIsNull();
+
+    /**
+     * update book content hash by UUID
+     * 
+     * @param uuid        The UUID of the book to update.
+     * @param contentHash The hex-encoded SHA-256 of the file.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Book b SET b.contentHash = ?2 WHERE b.uuid = ?1")
+    void updateContentHashByUuid(UUID uuid, String contentHash);
+
     /**
      * update book pages by UUID
      * 
@@ -31,4 +68,35 @@ public interface BookRepo extends JpaRepository<Book, Long> {
     @Transactional
     @Query(value = "UPDATE book SET pages = ?2 WHERE uuid = ?1", nativeQuery = true)
     void updatePagesByUuid(UUID uuid, int pages);
+
+    /**
+     * update book ingestion state by UUID
+     * 
+     * @param uuid  The UUID of the book to update.
+     * @param state The new ingestion state.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE Book b SET b.ingestionState = ?2 WHERE b.uuid = ?1")
+    void updateIngestionStateByUuid(UUID uuid, IngestionState state);
+
+    /**
+     * Find all books currently in one of the given ingestion states.
+     * 
+     * @param states The ingestion states to match.
+     * @return A list of matching Book entities.
+     */
+    List<Book> findByIngestionStateIn(List<IngestionState> states);
+
+    /**
+     * List every book with the given user's progress in a single query.
+     * Only the columns shown in the library are selected.
+     * 
+     * @param accountUuid The UUID of the user whose progress to join.
+     * @return A list of library entries; progress fields are null if the user has none.
+     */
+    @Query("SELECT new com.rem.reader.DTO.BookListItemDTO(b.uuid, b.title, b.author, b.pages, p.currentPageNumber, p.favorite) "
+            + "FROM Book b LEFT JOIN Progress p ON p.bookUuid = b.uuid AND p.accountUuid = ?1 "
+            + "ORDER BY b.id")
+    List<BookListItemDTO> findAllWithProgress(UUID accountUuid);
 }
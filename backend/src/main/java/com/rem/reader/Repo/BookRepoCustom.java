@@ -0,0 +1,25 @@
+package com.rem.reader.Repo;
+
+import java.util.UUID;
+
+import com.rem.reader.DTO.LibraryCursorDTO;
+import com.rem.reader.DTO.LibraryFilter;
+import com.rem.reader.DTO.LibraryPageDTO;
+import com.rem.reader.DTO.LibrarySort;
+
+public interface BookRepoCustom {
+
+    /**
+     * Find one page of the library with the given user's progress, using keyset
+     * pagination so every page costs the same however deep into the library it is.
+     * @param accountUuid The UUID of the user whose progress to join.
+     * @param sort The sort key.
+     * @param descending Whether to sort in descending order.
+     * @param filter Which books to include.
+     * @param after The position of the last entry of the previous page, or null for the first page.
+     * @param limit The maximum number of books to return.
+     * @return The books of the page and the cursor of the next page, which is null on the last page.
+     */
+    LibraryPageDTO findLibraryPage(UUID accountUuid, LibrarySort sort, boolean descending, LibraryFilter filter,
+            LibraryCursorDTO after, int limit);
+}
@@ -0,0 +1,276 @@
+package com.rem.reader.Repo;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.rem.reader.DTO.BookListItemDTO;
+import com.rem.reader.DTO.LibraryCursorDTO;
+import com.rem.reader.DTO.LibraryFilter;
+import com.rem.reader.DTO.LibraryPageDTO;
+import com.rem.reader.DTO.LibrarySort;
+
+public class BookRepoCustomImpl implements BookRepoCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String COLUMNS =
+            "SELECT b.id, b.uuid, b.title, b.author, b.pages, b.uploaded_at, "
+            + "p.id AS progress_id, p.current_page_number, p.favorite, p.last_read ";
+
+    private static final String FROM_BOOK =
+            "FROM book b LEFT JOIN progress p ON p.book_uuid = b.uuid AND p.account_uuid = ? ";
+
+    private static final String FROM_PROGRESS =
+            "FROM progress p JOIN book b ON b.uuid = p.book_uuid ";
+
+    /**
+     * One row of a library query: the entry itself plus the values a cursor is built from.
+     */
+    private record LibraryRow(BookListItemDTO book, long bookId, long progressId, Object uploadedAt, Object lastRead) {}
+
+    /**
+     * Find one page of the library. Title, author and upload date pages walk
+     * the matching index of the book table; last read pages walk the user's
+     * progress rows by last read time and then the books they have never opened.
+     * @param accountUuid The UUID of the user whose progress to join.
+     * @param sort The sort key.
+     * @param descending Whether to sort in descending order.
+     * @param filter Which books to include.
+     * @param after The position of the last entry of the previous page, or null for the first page.
+     * @param limit The maximum number of books to return.
+     * @return The books of the page and the cursor of the next page, which is null on the last page.
+     */
+    @Override
+    public LibraryPageDTO findLibraryPage(UUID accountUuid, LibrarySort sort, boolean descending,
+            LibraryFilter filter, LibraryCursorDTO after, int limit) {
+        byte[] account = accountUuid != null ? BookPageCacheRepoCustomImpl.toBytes(accountUuid) : null;
+
+        if (sort != LibrarySort.LAST_READ)
+            return findByBookColumn(account, sort, descending, filter, after, limit);
+
+        List<LibraryRow> rows = new ArrayList<>();
+        if (after == null || !after.isUnread()) {
+            rows = findRead(account, descending, filter, after, limit + 1);
+            if (rows.size() > limit) {
+                LibraryRow last = rows.get(limit - 1);
+                return page(rows.subList(0, limit), new LibraryCursorDTO(last.lastRead(), last.progressId(), false));
+            }
+            after = null;
+        }
+
+        // The read books ran out on this page; fill the rest with books the user has not opened
+        int remaining = limit - rows.size();
+        List<LibraryRow> unread = findUnread(account, descending, filter, after, remaining + 1);
+        List<LibraryRow> combined = new ArrayList<>(rows);
+        combined.addAll(unread.subList(0, Math.min(remaining, unread.size())));
+
+        if (unread.size() <= remaining)
+            return page(combined, null);
+        long lastId = remaining > 0
+                ? unread.get(remaining - 1).bookId()
+                : after != null ? after.getId() : descending ? Long.MAX_VALUE : 0;
+        return page(combined, new LibraryCursorDTO(null, lastId, true));
+    }
+
+    // Private methods
+
+    /**
+     * Find a page of books ordered by one of their own columns, with the book
+     * id breaking ties. SQLite sorts NULLs first in ascending order and last in
+     * descending order; the NULL and non-NULL parts are queried separately so
+     * each query stays a range scan of the index.
+     * @param account The user's UUID in its stored form.
+     * @param sort The sort key; not LAST_READ.
+     * @param descending Whether to sort in descending order.
+     * @param filter Which books to include.
+     * @param after The cursor of the previous page, or null.
+     * @param limit The maximum number of books to return.
+     * @return The page.
+     */
+    private LibraryPageDTO findByBookColumn(byte[] account, LibrarySort sort, boolean descending,
+            LibraryFilter filter, LibraryCursorDTO after, int limit) {
+        String column = switch (sort) {
+            case TITLE -> "b.title";
+            case AUTHOR -> "b.author";
+            default -> "b.uploaded_at";
+        };
+
+        List<LibraryRow> rows = new ArrayList<>();
+        boolean[] nullParts = descending ? new boolean[] { false, true } : new boolean[] { true, false };
+        for (boolean nulls : nullParts) {
+            // Skip the part the cursor has already left behind
+            if (after != null && nulls != (after.getValue() == null))
+                continue;
+            rows.addAll(findBookColumnPart(account, column, nulls, descending, filter, after, limit + 1 - rows.size()));
+            after = null;
+            if (rows.size() > limit)
+                break;
+        }
+
+        if (rows.size() <= limit)
+            return page(rows, null);
+
+        LibraryRow last = rows.get(limit - 1);
+        Object value = switch (sort) {
+            case TITLE -> last.book().getTitle();
+            case AUTHOR -> last.book().getAuthor();
+            default -> last.uploadedAt();
+        };
+        return page(rows.subList(0, limit), new LibraryCursorDTO(value, last.bookId(), false));
+    }
+
+    /**
+     * Find the books whose sort column is NULL, or the ones whose sort column is not.
+     * @param account The user's UUID in its stored form.
+     * @param column The sort column.
+     * @param nulls Whether to find the books whose sort column is NULL.
+     * @param descending Whether to sort in descending order.
+     * @param filter Which books to include.
+     * @param after The cursor of the previous page if it ended in this part, or null.
+     * @param limit The maximum number of rows to return.
+     * @return The matching rows.
+     */
+    private List<LibraryRow> findBookColumnPart(byte[] account, String column, boolean nulls, boolean descending,
+            LibraryFilter filter, LibraryCursorDTO after, int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(account);
+        List<String> conditions = filterConditions(filter);
+        String compare = descending ? " < " : " > ";
+        if (nulls) {
+            conditions.add(0, column + " IS NULL");
+            if (after != null) {
+                conditions.add("b.id" + compare + "?");
+                args.add(after.getId());
+            }
+        } else if (after != null) {
+            conditions.add(0, "(" + column + ", b.id)" + compare + "(?, ?)");
+            args.add(after.getValue());
+            args.add(after.getId());
+        } else {
+            conditions.add(0, column + " IS NOT NULL");
+        }
+
+        String direction = descending ? " DESC" : " ASC";
+        String sql = COLUMNS + FROM_BOOK + where(conditions)
+                + "ORDER BY " + column + direction + ", b.id" + direction + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, this::mapRow, args.toArray());
+    }
+
+    /**
+     * Find the books the user has read, ordered by last read time with the progress id breaking ties.
+     * @param account The user's UUID in its stored form.
+     * @param descending Whether the most recently read books come first.
+     * @param filter Which books to include.
+     * @param after The cursor of the previous page, or null.
+     * @param limit The maximum number of rows to return.
+     * @return The matching rows.
+     */
+    private List<LibraryRow> findRead(byte[] account, boolean descending, LibraryFilter filter,
+            LibraryCursorDTO after, int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(account);
+        List<String> conditions = filterConditions(filter);
+        conditions.add(0, "p.account_uuid = ?");
+        conditions.add(1, "p.last_read IS NOT NULL");
+        if (after != null) {
+            conditions.add(descending ? "(p.last_read, p.id) < (?, ?)" : "(p.last_read, p.id) > (?, ?)");
+            args.add(after.getValue());
+            args.add(after.getId());
+        }
+
+        String direction = descending ? " DESC" : " ASC";
+        String sql = COLUMNS + FROM_PROGRESS + where(conditions)
+                + "ORDER BY p.last_read" + direction + ", p.id" + direction + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, this::mapRow, args.toArray());
+    }
+
+    /**
+     * Find the books the user has never opened, in upload order.
+     * @param account The user's UUID in its stored form.
+     * @param descending Whether the newest books come first.
+     * @param filter Which books to include.
+     * @param after The cursor of the previous page if it ended among unread books, or null.
+     * @param limit The maximum number of rows to return.
+     * @return The matching rows.
+     */
+    private List<LibraryRow> findUnread(byte[] account, boolean descending, LibraryFilter filter,
+            LibraryCursorDTO after, int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(account);
+        List<String> conditions = filterConditions(filter);
+        conditions.add(0, "p.last_read IS NULL");
+        if (after != null) {
+            conditions.add(descending ? "b.id < ?" : "b.id > ?");
+            args.add(after.getId());
+        }
+
+        String sql = COLUMNS + FROM_BOOK + where(conditions)
+                + "ORDER BY b.id" + (descending ? " DESC" : " ASC") + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, this::mapRow, args.toArray());
+    }
+
+    /**
+     * Build the conditions of a filter.
+     * @param filter The filter.
+     * @return A mutable list of SQL conditions.
+     */
+    private static List<String> filterConditions(LibraryFilter filter) {
+        List<String> conditions = new ArrayList<>();
+        switch (filter) {
+            case FAVORITES -> conditions.add("p.favorite = 1");
+            case IN_PROGRESS -> conditions.add("p.current_page_number > 0 AND p.current_page_number < b.pages - 1");
+            default -> {}
+        }
+        return conditions;
+    }
+
+    /**
+     * Join conditions into a WHERE clause.
+     * @param conditions The SQL conditions.
+     * @return The WHERE clause, or an empty string if there are no conditions.
+     */
+    private static String where(List<String> conditions) {
+        return conditions.isEmpty() ? "" : "WHERE " + String.join(" AND ", conditions) + " ";
+    }
+
+    /**
+     * Map a result row to a library row.
+     * @param rs The result set.
+     * @param rowNum The row number.
+     * @return The library row.
+     * @throws SQLException If a column cannot be read.
+     */
+    private LibraryRow mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Integer currentPage = rs.getObject("current_page_number") != null ? rs.getInt("current_page_number") : null;
+        Boolean favorite = rs.getObject("favorite") != null ? rs.getBoolean("favorite") : null;
+        BookListItemDTO book = new BookListItemDTO(
+                BookPageCacheRepoCustomImpl.fromBytes(rs.getBytes("uuid")),
+                rs.getString("title"),
+                rs.getString("author"),
+                rs.getInt("pages"),
+                currentPage,
+                favorite);
+        return new LibraryRow(book, rs.getLong("id"), rs.getLong("progress_id"),
+                rs.getObject("uploaded_at"), rs.getObject("last_read"));
+    }
+
+    /**
+     * Build a page from library rows.
+     * @param rows The rows of the page.
+     * @param next The cursor of the next page, or null.
+     * @return The page.
+     */
+    private static LibraryPageDTO page(List<LibraryRow> rows, LibraryCursorDTO next) {
+        return new LibraryPageDTO(rows.stream().map(LibraryRow::book).toList(), next);
+    }
+}
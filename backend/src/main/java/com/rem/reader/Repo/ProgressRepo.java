@@ -10,7 +10,7 @@ import com.rem.reader.Models.Progress;
 
 import jakarta.transaction.Transactional;
 
-public interface ProgressRepo extends JpaRepository<Progress, Long> {
+public interface ProgressRepo extends JpaRepository<Progress, Long>, ProgressRepoCustom {
 
     /**
      * Check if a progress entry exists for the given user and book UUIDs.
@@ -0,0 +1,14 @@
+package com.rem.reader.Repo;
+
+import java.util.List;
+
+import com.rem.reader.Models.Progress;
+
+public interface ProgressRepoCustom {
+
+    /**
+     * Update or insert the current page of several progress entries in one transaction.
+     * @param entries The progress entries to write, keyed by account and book UUID.
+     */
+    void upsertCurrentPages(List<Progress> entries);
+}
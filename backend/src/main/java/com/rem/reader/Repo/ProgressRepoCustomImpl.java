@@ -0,0 +1,55 @@
+package com.rem.reader.Repo;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.rem.reader.Models.Progress;
+
+public class ProgressRepoCustomImpl implements ProgressRepoCustom {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final String UPDATE_PAGE =
+            "UPDATE progress SET current_page_number = ?, last_read = ? WHERE account_uuid = ? AND book_uuid = ?";
+
+    private static final String INSERT_PAGE =
+            "INSERT INTO progress (account_uuid, book_uuid, current_page_number, favorite, last_read) VALUES (?, ?, ?, 0, ?)";
+
+    /**
+     * Update or insert the current page of several progress entries in one transaction.
+     * Entries are updated with one JDBC batch, and the ones that matched no row are
+     * inserted with a second batch.
+     * @param entries The progress entries to write, keyed by account and book UUID.
+     */
+    @Override
+    @Transactional
+    public void upsertCurrentPages(List<Progress> entries) {
+        int[][] updated = jdbcTemplate.batchUpdate(UPDATE_PAGE, entries, entries.size(), (ps, progress) -> {
+            ps.setInt(1, progress.getCurrentPageNumber());
+            ps.setTimestamp(2, Timestamp.valueOf(progress.getLastRead()));
+            ps.setBytes(3, BookPageCacheRepoCustomImpl.toBytes(progress.getAccountUuid()));
+            ps.setBytes(4, BookPageCacheRepoCustomImpl.toBytes(progress.getBookUuid()));
+        });
+
+        List<Progress> missing = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            if (updated[0][i] == 0)
+                missing.add(entries.get(i));
+        }
+        if (missing.isEmpty())
+            return;
+
+        jdbcTemplate.batchUpdate(INSERT_PAGE, missing, missing.size(), (ps, progress) -> {
+            ps.setBytes(1, BookPageCacheRepoCustomImpl.toBytes(progress.getAccountUuid()));
+            ps.setBytes(2, BookPageCacheRepoCustomImpl.toBytes(progress.getBookUuid()));
+            ps.setInt(3, progress.getCurrentPageNumber());
+            ps.setTimestamp(4, Timestamp.valueOf(progress.getLastRead()));
+        });
+    }
+}
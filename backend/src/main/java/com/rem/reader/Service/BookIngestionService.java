@@ -0,0 +1,667 @@
+package com.rem.reader.Service;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Evaluator;
+import org.jsoup.select.QueryParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.rem.reader.Models.Book;
+import com.rem.reader.Models.BookPageCache;
+import com.rem.reader.Models.IngestionState;
+import com.rem.reader.Repo.BookPageCacheRepo;
+import com.rem.reader.Repo.BookRepo;
+import com.rem.reader.Service.EpubPackageService.EpubPackage;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+@Service
+public class BookIngestionService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookIngestionService.class);
+
+    @Autowired
+    BookRepo bookRepo;
+
+    @Autowired
+    BookPageCacheRepo bookPageCacheRepo;
+
+    @Autowired
+    BookPageCacheService bookPageCacheService;
+
+    @Autowired
+    PageCompressionService pageCompressionService;
+
+    @Autowired
+    PageResponseService pageResponseService;
+
+    @Autowired
+    EpubAssetService epubAssetService;
+
+    @Autowired
+    BookSearchService bookSearchService;
+
+    @Autowired
+    EpubPackageService epubPackageService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("ingestionExecutor")
+    ThreadPoolTaskExecutor ingestionExecutor;
+
+    @Autowired
+    @Qualifier("paginationExecutor")
+    ThreadPoolTaskExecutor paginationExecutor;
+
+    @Value("${reader.ingestion.chunk-pages:200}")
+    private int chunkPages;
+
+    @Value("${reader.ingestion.chunk-chars:4000000}")
+    private long chunkChars;
+
+    private static final int BLOCKS_PER_PAGE = 15;
+
+    private static final Evaluator BLOCK_SELECTOR = QueryParser.parse("h1, h2, h3, p, blockquote");
+
+    // One in-flight ingestion per book; concurrent callers share its future
+    private final ConcurrentHashMap<UUID, CompletableFuture<Integer>> inFlight = new ConcurrentHashMap<>();
+
+    // Books deleted while their ingestion was in flight; the worker stops at its next batch
+    private final Set<UUID> cancelled = ConcurrentHashMap.newKeySet();
+
+    private Timer paginationTimer;
+    private Counter pagesCounter;
+    private Counter bytesCounter;
+    private Counter doneCounter;
+    private Counter failedCounter;
+
+    /**
+     * Registers the ingestion meters.
+     */
+    @PostConstruct
+    public void init() {
+        paginationTimer = Timer.builder("reader.ingest.pagination")
+                .description("Time to extract, paginate and store the pages of a book")
+                .register(meterRegistry);
+        pagesCounter = Counter.builder("reader.ingest.pages")
+                .description("Pages produced by ingestion")
+                .register(meterRegistry);
+        bytesCounter = Counter.builder("reader.ingest.read")
+                .description("Uncompressed chapter markup read by ingestion")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        doneCounter = Counter.builder("reader.ingest.books")
+                .description("Books whose ingestion finished")
+                .tag("outcome", "done")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("reader.ingest.books")
+                .description("Books whose ingestion finished")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    // Public methods
+
+    /**
+     * Marks a book as queued and hands it to the background ingestion pool.
+     * If the book is already queued or running, the existing ingestion is
+     * shared instead of starting a second one. A book held by a maintenance
+     * job is queued once the job is done. If the pool is saturated the
+     * book stays queued and is picked up again on the next startup or the
+     * next time someone opens it. If the queued state cannot be stored, the
+     * error is rethrown and nothing is left in flight for the book.
+     * 
+     * @param bookUuid The UUID of the book to paginate.
+     * @return A future completed with the number of pages produced.
+     */
+    public CompletableFuture<Integer> enqueue(UUID bookUuid) {
+        CompletableFuture<Integer> ingestion = new CompletableFuture<>();
+        CompletableFuture<Integer> existing = inFlight.putIfAbsent(bookUuid, ingestion);
+        if (existing != null) {
+            if (!(existing instanceof MaintenanceClaim))
+                return existing;
+            return existing.handle((result, error) -> null).thenCompose(ignored -> enqueue(bookUuid));
+        }
+
+        boolean submitted = false;
+        Exception failure = null;
+        try {
+            bookRepo.updateIngestionStateByUuid(bookUuid, IngestionState.QUEUED);
+            ingestionExecutor.execute(() -> ingest(bookUuid, ingestion));
+            submitted = true;
+        } catch (TaskRejectedException e) {
+            log.warn("Ingestion queue full, book {} left queued", bookUuid);
+            failure = e;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            // Released on any failure, or the book could not be queued again until a restart
+            if (!submitted) {
+                inFlight.remove(bookUuid, ingestion);
+                ingestion.completeExceptionally(failure != null ? failure
+                        : new IllegalStateException("Book " + bookUuid + " was not queued"));
+            }
+        }
+        return ingestion;
+    }
+
+    /**
+     * Checks whether a book currently has a queued or running ingestion.
+     * 
+     * @param bookUuid The UUID of the book.
+     * @return true if an ingestion is in flight, otherwise false.
+     */
+    public boolean isInFlight(UUID bookUuid) {
+        CompletableFuture<Integer> existing = inFlight.get(bookUuid);
+        return existing != null && !(existing instanceof MaintenanceClaim);
+    }
+
+    /**
+     * Runs a job that rewrites a book's stored pages while holding the book's
+     * in-flight entry, so no ingestion of the book runs at the same time. An
+     * ingestion queued meanwhile starts once the job is done. If the book is
+     * deleted meanwhile, whatever the job wrote for it is removed.
+     * 
+     * @param bookUuid The UUID of the book.
+     * @param job      The job to run.
+     * @return true if the job ran, false if an ingestion of the book is in flight.
+     */
+    public boolean runExclusively(UUID bookUuid, Runnable job) {
+        MaintenanceClaim claim = new MaintenanceClaim();
+        if (inFlight.putIfAbsent(bookUuid, claim) != null)
+            return false;
+
+        try {
+            job.run();
+        } finally {
+            try {
+                if (cancelled.contains(bookUuid))
+                    discardPages(bookUuid);
+            } finally {
+                inFlight.remove(bookUuid, claim);
+                cancelled.remove(bookUuid);
+                claim.complete(0);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the ingestion of a book that is being deleted. The worker checks
+     * before and after each batch it writes, so it stops at the next one and
+     * removes whatever pages and search text it had already written. Call
+     * this before deleting the book's rows, so nothing written afterwards is
+     * left behind.
+     * 
+     * @param bookUuid The UUID of the book.
+     */
+    public void cancel(UUID bookUuid) {
+        cancelled.add(bookUuid);
+        // The worker clears the mark after releasing the book; if it already has, clear it here
+        if (!inFlight.containsKey(bookUuid))
+            cancelled.remove(bookUuid);
+    }
+
+    /**
+     * Re-queues books whose ingestion was interrupted by a shutdown.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingIngestion() {
+        List<Book> pending = bookRepo.findByIngestionStateIn(
+                List.of(IngestionState.QUEUED, IngestionState.RUNNING));
+        for (Book book : pending) {
+            enqueue(book.getUuid());
+        }
+    }
+
+    // Private methods
+
+    /**
+     * Paginates a single book and records the outcome on its ingestion state.
+     * Any rows left behind by an interrupted earlier run are discarded first.
+     * The in-flight entry is released only after the final state is stored, so
+     * a caller never starts a second run while the first is still finishing.
+     * It is released and the future completed even if storing the state
+     * fails, so the book can always be queued again. A run cancelled because
+     * the book was deleted removes the rows it wrote instead of marking the
+     * book failed.
+     * 
+     * @param bookUuid  The UUID of the book.
+     * @param ingestion The shared future to complete.
+     */
+    private void ingest(UUID bookUuid, CompletableFuture<Integer> ingestion) {
+        Integer pages = null;
+        Exception failure = null;
+        try {
+            Book book = bookRepo.findByUuid(bookUuid);
+            if (book == null) {
+                pages = 0;
+                return;
+            }
+
+            bookRepo.updateIngestionStateByUuid(bookUuid, IngestionState.RUNNING);
+            discardPages(bookUuid);
+            epubAssetService.closeBook(bookUuid);
+
+            int produced = extractAndCachePages(Paths.get(book.getFilePath()), bookUuid);
+
+            bookRepo.updateIngestionStateByUuid(bookUuid, IngestionState.DONE);
+            doneCounter.increment();
+            pages = produced;
+        } catch (CancellationException e) {
+            failure = e;
+            try {
+                discardPages(bookUuid);
+            } catch (Exception cleanupError) {
+                e.addSuppressed(cleanupError);
+                e.printStackTrace();
+            }
+        } catch (Exception e) {
+            failure = e;
+            failedCounter.increment();
+            try {
+                bookRepo.updateIngestionStateByUuid(bookUuid, IngestionState.FAILED);
+            } catch (Exception stateError) {
+                e.addSuppressed(stateError);
+            }
+            e.printStackTrace();
+        } finally {
+            inFlight.remove(bookUuid, ingestion);
+            cancelled.remove(bookUuid);
+            if (pages != null)
+                ingestion.complete(pages);
+            else
+                ingestion.completeExceptionally(failure != null ? failure
+                        : new IllegalStateException("Ingestion of book " + bookUuid + " was aborted"));
+        }
+    }
+
+    /**
+     * Extracts and caches the pages of a book from the EPUB file. Chapters are
+     * read by random access in the spine order of the OPF and parsed and
+     * paginated in parallel on the pagination pool, a bounded window of
+     * chapters ahead of the writer. The writer takes the results in spine
+     * order, so page numbers do not depend on which chapter finishes first.
+     * Pages are flushed in chunks, each committed in its own short
+     * transaction, so memory use is bounded by the chunk size and the window
+     * rather than by the size of the book. Page content is stored compressed
+     * with a dictionary built from the first chunk, and the text of each chunk
+     * is added to the search index as it is written. The duration, the pages
+     * produced and the chapter bytes read go to the ingestion metrics.
+     * 
+     * @param epubPath The path to the EPUB file.
+     * @param bookUuid The UUID of the book.
+     * @return The number of pages produced.
+     * @throws IOException If an I/O error occurs during extraction or caching.
+     */
+    private int extractAndCachePages(Path epubPath, UUID bookUuid) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            int pages = paginateAndStore(epubPath, bookUuid);
+            pagesCounter.increment(pages);
+            return pages;
+        } finally {
+            sample.stop(paginationTimer);
+        }
+    }
+
+    /**
+     * Paginates a book and stores its pages, as described for
+     * extractAndCachePages.
+     * 
+     * @param epubPath The path to the EPUB file.
+     * @param bookUuid The UUID of the book.
+     * @return The number of pages produced.
+     * @throws IOException If an I/O error occurs during extraction or caching.
+     */
+    private int paginateAndStore(Path epubPath, UUID bookUuid) throws IOException {
+        PageChunkWriter writer = new PageChunkWriter(bookUuid);
+        int pageCounter = 0;
+
+        try (ZipFile zipFile = new ZipFile(epubPath.toFile())) {
+            // In archive mode images stay in the EPUB and are served from it on demand
+            if (epubAssetService.extractsAssets())
+                extractImages(zipFile, epubPath.getParent().resolve("assets"));
+
+            List<ZipEntry> chapters = findChapters(zipFile);
+            int window = Math.max(1, paginationExecutor.getMaxPoolSize() * 2);
+            Deque<Future<List<BookPageCache>>> pending = new ArrayDeque<>();
+            int next = 0;
+            try {
+                while (next < chapters.size() || !pending.isEmpty()) {
+                    while (next < chapters.size() && pending.size() < window) {
+                        ZipEntry chapter = chapters.get(next++);
+                        if (chapter.getSize() > 0)
+                            bytesCounter.increment(chapter.getSize());
+                        pending.add(paginationExecutor.submit(() -> paginateChapter(zipFile, chapter, bookUuid)));
+                    }
+                    for (BookPageCache page : await(pending.poll())) {
+                        page.setPageNumber(pageCounter++);
+                        writer.add(page);
+                    }
+                }
+            } finally {
+                // Only reached with chapters left over if the book failed; they are not needed
+                pending.forEach(chapter -> chapter.cancel(true));
+            }
+        }
+        writer.flush();
+        checkCancelled(bookUuid);
+        bookRepo.updatePagesByUuid(bookUuid, pageCounter);
+        return pageCounter;
+    }
+
+    /**
+     * Removes the stored pages, search text and dictionary of a book and
+     * drops them from the in-memory caches.
+     * 
+     * @param bookUuid The UUID of the book.
+     */
+    private void discardPages(UUID bookUuid) {
+        bookPageCacheRepo.deleteByBookUuid(bookUuid);
+        bookPageCacheRepo.deleteSearchText(bookUuid);
+        bookPageCacheService.invalidateBook(bookUuid);
+        pageCompressionService.invalidateBook(bookUuid);
+        pageResponseService.invalidateBook(bookUuid);
+    }
+
+    /**
+     * Stops an ingestion whose book has been deleted.
+     * 
+     * @param bookUuid The UUID of the book.
+     * @throws CancellationException If the book was deleted.
+     */
+    private void checkCancelled(UUID bookUuid) {
+        if (cancelled.contains(bookUuid))
+            throw new CancellationException("Book " + bookUuid + " was deleted");
+    }
+
+    /**
+     * Lists the chapter documents of a book in reading order. The spine of
+     * the OPF gives the order; an EPUB without a usable spine falls back to
+     * the order of the archive.
+     * Package-private so the benchmarks can paginate without a database.
+     * 
+     * @param zipFile The open EPUB archive.
+     * @return The archive entries of the chapters.
+     * @throws IOException If the package document cannot be read.
+     */
+    List<ZipEntry> findChapters(ZipFile zipFile) throws IOException {
+        List<ZipEntry> chapters = new ArrayList<>();
+        EpubPackage epubPackage = epubPackageService.readPackage(zipFile);
+        if (epubPackage != null) {
+            for (String href : epubPackage.spine()) {
+                ZipEntry entry = zipFile.getEntry(href);
+                if (entry != null && isChapter(href))
+                    chapters.add(entry);
+            }
+        }
+
+        if (chapters.isEmpty()) {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                if (!entry.isDirectory() && isChapter(entry.getName()))
+                    chapters.add(entry);
+            }
+        }
+        return chapters;
+    }
+
+    /**
+     * Checks whether an archive entry is a chapter that gets paginated.
+     * Tables of contents are left out.
+     * 
+     * @param name The archive entry name.
+     * @return true if the entry is a chapter.
+     */
+    private static boolean isChapter(String name) {
+        String lowerName = name.toLowerCase();
+        return (lowerName.endsWith(".xhtml") || lowerName.endsWith(".html")) && !lowerName.contains("toc");
+    }
+
+    /**
+     * Copies the images of a book into its assets folder.
+     * 
+     * @param zipFile   The open EPUB archive.
+     * @param assetsDir The assets folder of the book.
+     * @throws IOException If an image cannot be copied.
+     */
+    private void extractImages(ZipFile zipFile, Path assetsDir) throws IOException {
+        Files.createDirectories(assetsDir);
+        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+        while (entries.hasMoreElements()) {
+            ZipEntry entry = entries.nextElement();
+            String name = entry.getName();
+            if (entry.isDirectory() || !name.toLowerCase().matches(".*\\.(jpg|jpeg|png|gif|svg)$"))
+                continue;
+            Path imagePath = assetsDir.resolve(Path.of(name).getFileName().toString());
+            try (InputStream in = zipFile.getInputStream(entry)) {
+                Files.copy(in, imagePath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Parses one chapter and splits it into pages. Runs on the pagination
+     * pool; the pages are numbered by the writer once every earlier chapter
+     * has been written.
+     * The document is walked once: image sources are rewritten in place and
+     * each block is serialized where it stands into a page buffer that is
+     * reused across pages, so no block is deep-copied.
+     * Package-private so the benchmarks can paginate without a database.
+     * 
+     * @param zipFile  The open EPUB archive.
+     * @param chapter  The archive entry of the chapter.
+     * @param bookUuid The UUID of the book.
+     * @return The pages of the chapter, in order, with their search text set.
+     * @throws IOException If the chapter cannot be read.
+     */
+    List<BookPageCache> paginateChapter(ZipFile zipFile, ZipEntry chapter, UUID bookUuid) throws IOException {
+        Document doc;
+        try (InputStream in = zipFile.getInputStream(chapter)) {
+            doc = Jsoup.parse(in, StandardCharsets.UTF_8.name(), "");
+        }
+        String chapterTitle = doc.title();
+
+        String assetPrefix = "http://localhost:8080/api/book-reader/" + bookUuid + "/assets/";
+        for (Element img : doc.getElementsByTag("img")) {
+            Path imageName = Path.of(img.attr("src")).getFileName();
+            img.attr("src", assetPrefix + (imageName != null ? imageName.toString() : ""));
+        }
+
+        List<BookPageCache> pages = new ArrayList<>();
+        StringBuilder pageBuilder = new StringBuilder();
+        int blockCount = 0;
+
+        for (Element block : doc.select(BLOCK_SELECTOR)) {
+            if (isFullImage(block)) {
+                if (blockCount > 0) {
+                    pages.add(createCache(bookUuid, chapterTitle, pageBuilder.toString()));
+                    pageBuilder.setLength(0);
+                    blockCount = 0;
+                }
+                pages.add(createCache(bookUuid, chapterTitle, blockHtml(block)));
+                continue;
+            }
+
+            // Blocks are trimmed, so joining them with newlines gives the trimmed page directly
+            if (blockCount > 0)
+                pageBuilder.append('\n');
+            pageBuilder.append(blockHtml(block));
+            blockCount++;
+
+            if (blockCount >= BLOCKS_PER_PAGE) {
+                pages.add(createCache(bookUuid, chapterTitle, pageBuilder.toString()));
+                pageBuilder.setLength(0);
+                blockCount = 0;
+            }
+        }
+
+        if (blockCount > 0)
+            pages.add(createCache(bookUuid, chapterTitle, pageBuilder.toString()));
+        return pages;
+    }
+
+    /**
+     * Checks whether a block is a paragraph holding nothing but one image,
+     * which gets a page of its own.
+     * 
+     * @param block The block element.
+     * @return true if the block is a full-page image.
+     */
+    private static boolean isFullImage(Element block) {
+        return block.tagName().equals("p")
+                && block.childrenSize() == 1
+                && block.getElementsByTag("img").size() == 1;
+    }
+
+    /**
+     * Serializes a block as pretty-printed HTML. Pretty-printing only depends
+     * on where the block sits when it has a whitespace-preserving ancestor;
+     * such blocks are serialized detached, as they were when every block was
+     * cloned, so the output is the same either way.
+     * 
+     * @param block The block element.
+     * @return The trimmed outer HTML of the block.
+     */
+    private static String blockHtml(Element block) {
+        for (Element ancestor = block.parent(); ancestor != null; ancestor = ancestor.parent()) {
+            if (ancestor.tag().preserveWhitespace())
+                return block.clone().outerHtml();
+        }
+        return block.outerHtml();
+    }
+
+    /**
+     * Waits for a chapter to be paginated.
+     * 
+     * @param chapter The pending chapter.
+     * @return The pages of the chapter.
+     * @throws IOException If the chapter could not be read, or the wait was interrupted.
+     */
+    private static List<BookPageCache> await(Future<List<BookPageCache>> chapter) throws IOException {
+        try {
+            return chapter.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while paginating");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io)
+                throw io;
+            if (e.getCause() instanceof RuntimeException runtime)
+                throw runtime;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Creates a BookPageCache object with the specified parameters. The page
+     * number is assigned when the page is written.
+     * 
+     * @param bookUuid  The UUID of the book.
+     * @param title     The title of the page.
+     * @param content   The content of the page.
+     * @return A BookPageCache object.
+     */
+    private BookPageCache createCache(UUID bookUuid, String title, String content) {
+        BookPageCache page = new BookPageCache();
+        page.setBookId(bookUuid);
+        page.setTitle(title);
+        page.setContent(content);
+        page.setSearchText(bookSearchService.toSearchText(content));
+        return page;
+    }
+
+    /**
+     * In-flight entry of a book held by a maintenance job rather than by an
+     * ingestion.
+     */
+    private static class MaintenanceClaim extends CompletableFuture<Integer> {
+    }
+
+    /**
+     * Buffers extracted pages and writes them out in chunks once either the
+     * page count or the buffered content size reaches its configured limit.
+     */
+    private class PageChunkWriter {
+
+        private final UUID bookUuid;
+        private final List<BookPageCache> buffer = new ArrayList<>();
+        private long bufferedChars = 0;
+        private byte[] dictionary;
+
+        PageChunkWriter(UUID bookUuid) {
+            this.bookUuid = bookUuid;
+        }
+
+        /**
+         * Adds a page to the buffer, flushing it if a limit is reached.
+         * 
+         * @param page The page to add.
+         */
+        void add(BookPageCache page) {
+            buffer.add(page);
+            bufferedChars += page.getContent().length();
+            if (buffer.size() >= chunkPages || bufferedChars >= chunkChars)
+                flush();
+        }
+
+        /**
+         * Compresses and writes all buffered pages in a single batch together
+         * with their search text, and clears the buffer. The first flush also
+         * creates the book's dictionary.
+         */
+        void flush() {
+            if (buffer.isEmpty())
+                return;
+            checkCancelled(bookUuid);
+            if (dictionary == null)
+                dictionary = pageCompressionService.createDictionary(bookUuid, buffer);
+            for (BookPageCache page : buffer)
+                pageCompressionService.compress(page, dictionary);
+            bookPageCacheRepo.insertBatch(buffer);
+            buffer.clear();
+            bufferedChars = 0;
+            checkCancelled(bookUuid);
+        }
+    }
+}
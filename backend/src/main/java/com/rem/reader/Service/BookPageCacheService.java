@@ -1,14 +1,204 @@
 package com.rem.reader.Service;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.rem.reader.Models.BookPageCache;
 import com.rem.reader.Repo.BookPageCacheRepo;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PostConstruct;
+
 @Service
-public class BookPageCacheService {
+public class BookPageCacheService implements MeterBinder {
 
     @Autowired
     BookPageCacheRepo bookPageCacheRepo;
+
+    @Value("${reader.page-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    private Cache<PageKey, BookPageCache> pages;
+
+    private record PageKey(UUID bookUuid, int pageNumber) {}
+
+    @PostConstruct
+    void init() {
+        // Caffeine's W-TinyLFU policy keeps frequently read pages over one-off scans
+        pages = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((PageKey key, BookPageCache page) -> weigh(page))
+                .recordStats()
+                .build();
+    }
+
+    // Public methods
+
+    /**
+     * Retrieves a single page, loading it from the database on a cache miss.
+     * 
+     * @param bookUuid   The UUID of the book.
+     * @param pageNumber The page number.
+     * @return The page, or null if the book has no such page.
+     */
+    public BookPageCache getPage(UUID bookUuid, int pageNumber) {
+        return pages.get(new PageKey(bookUuid, pageNumber),
+                key -> bookPageCacheRepo.findByBookIdAndPageNumber(key.bookUuid(), key.pageNumber()));
+    }
+
+    /**
+     * Retrieves a contiguous range of pages. Pages missing from the cache are
+     * loaded with a single range query spanning the missing page numbers.
+     * 
+     * @param bookUuid  The UUID of the book.
+     * @param fromPage  The first page number, inclusive.
+     * @param count     The number of pages.
+     * @return The pages found, ordered by page number.
+     */
+    public List<BookPageCache> getPages(UUID bookUuid, int fromPage, int count) {
+        List<PageKey> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++)
+            keys.add(new PageKey(bookUuid, fromPage + i));
+
+        Map<PageKey, BookPageCache> found = pages.getAll(keys, missing -> {
+            int first = missing.stream().mapToInt(PageKey::pageNumber).min().orElse(fromPage);
+            int last = missing.stream().mapToInt(PageKey::pageNumber).max().orElse(fromPage);
+            Map<PageKey, BookPageCache> loaded = new HashMap<>();
+            for (BookPageCache page : bookPageCacheRepo
+                    .findByBookIdAndPageNumberBetweenOrderByPageNumberAsc(bookUuid, first, last)) {
+                loaded.put(new PageKey(bookUuid, page.getPageNumber()), page);
+            }
+            return loaded;
+        });
+
+        List<BookPageCache> result = new ArrayList<>(found.size());
+        for (PageKey key : keys) {
+            BookPageCache page = found.get(key);
+            if (page != null)
+                result.add(page);
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether a page is cached without touching the hit/miss counters.
+     * 
+     * @param bookUuid   The UUID of the book.
+     * @param pageNumber The page number.
+     * @return true if the page is cached, otherwise false.
+     */
+    public boolean isCached(UUID bookUuid, int pageNumber) {
+        return pages.asMap().containsKey(new PageKey(bookUuid, pageNumber));
+    }
+
+    /**
+     * Loads a page into the cache ahead of a request. Uses a plain insert so
+     * read-ahead does not count towards the hit/miss counters.
+     * 
+     * @param bookUuid   The UUID of the book.
+     * @param pageNumber The page number.
+     */
+    public void prefetchPage(UUID bookUuid, int pageNumber) {
+        BookPageCache page = bookPageCacheRepo.findByBookIdAndPageNumber(bookUuid, pageNumber);
+        if (page != null)
+            pages.asMap().putIfAbsent(new PageKey(bookUuid, pageNumber), page);
+    }
+
+    /**
+     * Drops every cached page of a book.
+     * 
+     * @param bookUuid The UUID of the book.
+     */
+    public void invalidateBook(UUID bookUuid) {
+        pages.asMap().keySet().removeIf(key -> key.bookUuid().equals(bookUuid));
+    }
+
+    /**
+     * Publishes the cache's request, eviction and size metrics, plus its
+     * weighted size in bytes and its hit ratio. Called by the meter registry
+     * once it is ready.
+     * 
+     * @param registry The registry to bind to.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, pages, "pages");
+        Gauge.builder("reader.page.cache.size", this, BookPageCacheService::getSizeBytes)
+                .description("Approximate heap size of the cached pages")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("reader.page.cache.max.size", this, service -> service.maxBytes)
+                .description("Configured limit of the page cache")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("reader.page.cache.hit.ratio", pages, cache -> cache.stats().hitRate())
+                .description("Share of page reads served from the cache since startup")
+                .register(registry);
+    }
+
+    /**
+     * Returns the cache counters and its current size.
+     * 
+     * @return A map of hit, miss and eviction counts plus the cached size in bytes.
+     */
+    public Map<String, Object> getStats() {
+        CacheStats stats = pages.stats();
+        return Map.of(
+                "hits", stats.hitCount(),
+                "misses", stats.missCount(),
+                "hitRatio", stats.hitRate(),
+                "evictions", stats.evictionCount(),
+                "entries", pages.estimatedSize(),
+                "sizeBytes", getSizeBytes(),
+                "maxBytes", maxBytes);
+    }
+
+    /**
+     * Returns the total weight of the cached pages.
+     * 
+     * @return The cached size in bytes.
+     */
+    public long getSizeBytes() {
+        return pages.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    // Private methods
+
+    /**
+     * Approximates the heap footprint of a page from its text (two bytes per char)
+     * and its compressed content.
+     * 
+     * @param page The page to weigh.
+     * @return The page weight in bytes.
+     */
+    private static int weigh(BookPageCache page) {
+        long chars = (long) length(page.getContent()) + length(page.getTitle());
+        long bytes = length(page.getCompressedContent());
+        return (int) Math.min(Integer.MAX_VALUE, chars * 2 + bytes);
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    private static int length(byte[] value) {
+        return value != null ? value.length : 0;
+    }
 }
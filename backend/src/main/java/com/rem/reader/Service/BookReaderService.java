@@ -1,36 +1,34 @@
 package com.rem.reader.Service;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.UrlResource;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import com.rem.reader.Models.Book;
 import com.rem.reader.Models.BookPageCache;
-import com.rem.reader.Models.Progress;
+import com.rem.reader.Models.IngestionState;
+import com.rem.reader.Repo.AccountRepo;
 import com.rem.reader.Repo.BookPageCacheRepo;
 import com.rem.reader.Repo.BookRepo;
-import com.rem.reader.Repo.ProgressRepo;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 @Service
 public class BookReaderService {
@@ -39,41 +37,88 @@ public class BookReaderService {
     BookRepo bookRepo;
 
     @Autowired
-    ProgressRepo progressRepo;
+    ProgressService progressService;
 
     @Autowired
     BookPageCacheRepo bookPageCacheRepo;
 
-    private static final int BLOCKS_PER_PAGE = 15;
+    @Autowired
+    BookIngestionService bookIngestionService;
+
+    @Autowired
+    BookPageCacheService bookPageCacheService;
+
+    @Autowired
+    PagePrefetchService pagePrefetchService;
+
+    @Autowired
+    PageCompressionService pageCompressionService;
+
+    @Autowired
+    PageResponseService pageResponseService;
+
+    @Autowired
+    EpubAssetService epubAssetService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    AccountRepo accountRepo;
+
+    @Value("${reader.range.max-pages:50}")
+    private int maxRangePages;
+
+    private static final CacheControl ASSET_CACHE_CONTROL =
+            CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private Timer pageReadTimer;
+
+    /**
+     * Registers the page read timer.
+     */
+    @PostConstruct
+    public void init() {
+        pageReadTimer = Timer.builder("reader.pages.read")
+                .description("Time to serve a single page, including the progress update")
+                .register(meterRegistry);
+    }
 
     // Public methods
 
     /**
      * Retrieves the pages of a book based on the book's UUID and the requested page number.
-     * If the book's pages are not cached, it extracts and caches them.
+     * Pagination happens in the background, so a book that is not ingested yet answers
+     * with 202 and its ingestion state instead of blocking the request thread.
+     * Pages are served through the in-memory page cache by point lookup on
+     * (book, page number), and the total comes from the page count stored on the book.
+     * Serving a page schedules read-ahead of the pages that are likely to follow.
+     * Clients that accept gzip (with a non-zero quality value) get the page's
+     * gzipped body from memory, encoded once per page rather than per request.
      * Updates the user's current page in the progress service.
      * 
-     * @param bookUuid   The UUID of the book.
-     * @param pageNumber The requested page number.
-     * @param session    The HTTP session.
+     * @param bookUuid       The UUID of the book.
+     * @param pageNumber     The requested page number.
+     * @param acceptEncoding The request's Accept-Encoding header, may be null.
+     * @param session        The HTTP session.
      * @return A ResponseEntity containing the book pages or an error message.
      */
-    public ResponseEntity<?> getBookPages(UUID bookUuid, int pageNumber, HttpSession session) {
+    public ResponseEntity<?> getBookPages(UUID bookUuid, int pageNumber, String acceptEncoding, HttpSession session) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
             Book book = bookRepo.findByUuid(bookUuid);
             if (book == null)
                 return ResponseEntity.notFound().build();
 
-            Path epubPath = Paths.get(book.getFilePath());
-            if (!bookPageCacheRepo.existsByBookId(bookUuid))
-                extractAndCachePages(epubPath, bookUuid);
+            ResponseEntity<?> notReady = checkIngestionState(book);
+            if (notReady != null)
+                return notReady;
 
-            Page<BookPageCache> page = getBookPageCacheByBookId(
-                    bookUuid,
-                    pageNumber,
-                    1);
+            if (pageNumber < 0 || pageNumber >= book.getPages())
+                return ResponseEntity.ok(Collections.emptyList());
 
-            if (page.isEmpty())
+            BookPageCache page = bookPageCacheService.getPage(bookUuid, pageNumber);
+            if (page == null)
                 return ResponseEntity.ok(Collections.emptyList());
 
             UUID userUuid = (UUID) session.getAttribute("userUuid");
@@ -81,186 +126,188 @@ public class BookReaderService {
                 return ResponseEntity.status(401).body("User not authenticated");
             
 
-            updateUserCurrentPage(userUuid, bookUuid, pageNumber);
+            progressService.updateUserCurrentPage(userUuid, bookUuid, pageNumber);
+            pagePrefetchService.onPageServed(userUuid, bookUuid, pageNumber, book.getPages());
 
+            if (pageResponseService.acceptsGzip(acceptEncoding)) {
+                return ResponseEntity.ok()
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                        .body(pageResponseService.getEncodedResponse(page, book.getPages()));
+            }
 
 
-            return ResponseEntity.ok().body(Map.of("pages", page.getContent(), "totalPages", page.getTotalPages()));
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .body(Map.of("pages", List.of(page), "totalPages", book.getPages()));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().body("Failed to retrieve book pages: " + e.getMessage());
+        } finally {
+            sample.stop(pageReadTimer);
         }
     }
 
+    /**
+     * Retrieves a contiguous block of pages in one response, so a client can
+     * page through a whole block without a round trip per page. The block is
+     * read with a single range query (or from the page cache), and the user's
+     * progress is updated once, to the first page of the block.
+     * 
+     * @param bookUuid The UUID of the book.
+     * @param from     The first page number of the block.
+     * @param count    The number of pages, capped at reader.range.max-pages.
+     * @param session  The HTTP session.
+     * @return A ResponseEntity containing the pages or an error message.
+     */
+    public ResponseEntity<?> getBookPageRange(UUID bookUuid, int from, int count, HttpSession session) {
+        try {
+            if (from < 0 || count < 1)
+                return ResponseEntity.badRequest().body("Invalid page range");
+
+            Book book = bookRepo.findByUuid(bookUuid);
+            if (book == null)
+                return ResponseEntity.notFound().build();
+
+            ResponseEntity<?> notReady = checkIngestionState(book);
+            if (notReady != null)
+                return notReady;
+
+            if (from >= book.getPages())
+                return ResponseEntity.ok(Collections.emptyList());
+
+            UUID userUuid = (UUID) session.getAttribute("userUuid");
+            if (userUuid == null)
+                return ResponseEntity.status(401).body("User not authenticated");
+
+            int size = Math.min(Math.min(count, maxRangePages), book.getPages() - from);
+            List<BookPageCache> pages = bookPageCacheService.getPages(bookUuid, from, size);
+
+            progressService.updateUserCurrentPage(userUuid, bookUuid, from);
+
+            return ResponseEntity.ok().body(Map.of("pages", pages, "totalPages", book.getPages()));
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Failed to retrieve book pages: " + e.getMessage());
+        }
+    }
 
     /**
      * Retrieves the current book asset based on the book's UUID and the asset path.
+     * Assets are immutable once extracted, so they are sent with validators and
+     * a year-long immutable Cache-Control.
      * 
      * @param bookUuid  The UUID of the book.
      * @param assetPath The path of the asset.
+     * @param request   The current request.
+     * @param response  The current response.
      * @return A ResponseEntity containing the asset or an error message.
      */
-    public ResponseEntity<?> getCurrentBookAsset(UUID bookUuid, String assetPath) {
+    public ResponseEntity<?> getCurrentBookAsset(UUID bookUuid, String assetPath, HttpServletRequest request,
+            HttpServletResponse response) {
         try {
             Book book = bookRepo.findByUuid(bookUuid);
             if (book == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            Path imagePath = Paths.get(book.getFilePath()).getParent().resolve("assets").resolve(assetPath);
-
-            UrlResource image = new UrlResource(imagePath.toUri());
-            String contentType = Files.probeContentType(imagePath);
-
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .body(image);
+            return epubAssetService.serveAsset(bookUuid, Paths.get(book.getFilePath()), assetPath, request, response,
+                    ASSET_CACHE_CONTROL);
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().body("Failed to retrieve asset: " + e.getMessage());
         }
     }
 
-    // Private methods
-
     /**
-     * Extracts and caches the pages of a book from the EPUB file.
+     * Retrieves the hit, miss and eviction counters of the in-memory page cache.
      * 
-     * @param epubPath The path to the EPUB file.
-     * @param bookUuid The UUID of the book.
-     * @throws IOException If an I/O error occurs during extraction or caching.
+     * @param session The HTTP session of an admin.
+     * @return A ResponseEntity containing the cache statistics, or 401 for anyone but an admin.
      */
-    private void extractAndCachePages(Path epubPath, UUID bookUuid) throws IOException {
-        List<BookPageCache> pagesToCache = new ArrayList<>();
-        int pageCounter = 0;
-        Path bookDir = epubPath.getParent();
-        Path assetsDir = bookDir.resolve("assets");
-        Files.createDirectories(assetsDir);
-
-        try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(epubPath))) {
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                String name = entry.getName();
-                String lowerName = name.toLowerCase();
-
-                if (lowerName.matches(".*\\.(jpg|jpeg|png|gif|svg)$")) {
-                    Path imagePath = assetsDir.resolve(Path.of(name).getFileName().toString());
-                    Files.copy(zis, imagePath, StandardCopyOption.REPLACE_EXISTING);
-                    continue;
-                }
-
-                if ((lowerName.endsWith(".xhtml") || lowerName.endsWith(".html")) && !lowerName.contains("toc")) {
-                    byte[] contentBytes = zis.readAllBytes();
-                    String html = new String(contentBytes, StandardCharsets.UTF_8);
-
-                    Document doc = Jsoup.parse(html);
-                    String chapterTitle = doc.title();
-                    Elements blocks = doc.select("h1, h2, h3, p, blockquote");
-
-                    StringBuilder pageBuilder = new StringBuilder();
-                    int blockCount = 0;
-
-                    for (Element block : blocks) {
-                        Element cloned = block.clone();
-
-                        cloned.select("img").forEach(img -> {
-                            String originalSrc = img.attr("src");
-                            String imageName = Path.of(originalSrc).getFileName().toString();
-                            String newSrc = "http://localhost:8080/api/book-reader/" + bookUuid + "/assets/"
-                                    + imageName;
-                            img.attr("src", newSrc);
-                        });
-
-                        boolean isFullImage = cloned.tagName().equals("p")
-                                && cloned.childrenSize() == 1
-                                && cloned.select("img").size() == 1;
-
-                        if (isFullImage) {
-                            if (!pageBuilder.isEmpty()) {
-                                String htmlPage = pageBuilder.toString().trim();
-                                pagesToCache.add(createCache(bookUuid, pageCounter++, chapterTitle, htmlPage));
-                                pageBuilder = new StringBuilder();
-                                blockCount = 0;
-                            }
-                            String imagePage = cloned.outerHtml();
-                            pagesToCache.add(createCache(bookUuid, pageCounter++, chapterTitle, imagePage));
-                            continue;
-                        }
-
-                        pageBuilder.append(cloned.outerHtml()).append("\n");
-                        blockCount++;
-
-                        if (blockCount >= BLOCKS_PER_PAGE) {
-                            String htmlPage = pageBuilder.toString().trim();
-                            pagesToCache.add(createCache(bookUuid, pageCounter++, chapterTitle, htmlPage));
-                            pageBuilder = new StringBuilder();
-                            blockCount = 0;
-                        }
-                    }
-
-                    if (!pageBuilder.isEmpty()) {
-                        String htmlPage = pageBuilder.toString().trim();
-                        pagesToCache.add(createCache(bookUuid, pageCounter++, chapterTitle, htmlPage));
-                    }
-                }
-            }
-        }
-        bookRepo.updatePagesByUuid(bookUuid, pageCounter);
-        bookPageCacheRepo.saveAll(pagesToCache);
+    public ResponseEntity<?> getPageCacheStats(HttpSession session) {
+        if (!isAdmin(session))
+            return ResponseEntity.status(401).body("Unauthorized");
+        return ResponseEntity.ok().body(bookPageCacheService.getStats());
     }
 
     /**
-     * Creates a BookPageCache object with the specified parameters.
+     * Reports the on-disk size of stored page content and its compression ratio.
      * 
-     * @param bookUuid  The UUID of the book.
-     * @param pageNumber The page number.
-     * @param title     The title of the page.
-     * @param content   The content of the page.
-     * @return A BookPageCache object.
+     * @param session The HTTP session of an admin.
+     * @return A ResponseEntity containing the storage statistics, or 401 for anyone but an admin.
      */
-    private BookPageCache createCache(UUID bookUuid, int pageNumber, String title, String content) {
-        BookPageCache page = new BookPageCache();
-        page.setBookId(bookUuid);
-        page.setPageNumber(pageNumber);
-        page.setTitle(title);
-        page.setContent(content);
-        return page;
+    public ResponseEntity<?> getPageStorageStats(HttpSession session) {
+        if (!isAdmin(session))
+            return ResponseEntity.status(401).body("Unauthorized");
+        try {
+            return ResponseEntity.ok().body(pageCompressionService.getStorageStats());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Failed to retrieve storage stats: " + e.getMessage());
+        }
     }
 
+    // Private methods
+
     /**
-     * Updates the user's current page for a specific book. If the progress entry
-     * does not exist, it creates a new one.
+     * Checks whether the session belongs to an admin.
      * 
-     * @param userUuid    The UUID of the user.
-     * @param bookUuid    The UUID of the book.
-     * @param currentPage The current page number.
+     * @param session The HTTP session.
+     * @return true if the user is logged in as an admin, otherwise false.
      */
-    public void updateUserCurrentPage(UUID userUuid, UUID bookUuid, int currentPage) {
-        if (progressRepo.existsByAccountUuidAndBookUuid(userUuid, bookUuid)) {
-            progressRepo.updateCurrentPage(userUuid, bookUuid, currentPage);
-        } 
-        else {
-            Progress progress = new Progress();
-            progress.setAccountUuid(userUuid); 
-            progress.setBookUuid(bookUuid); 
-            progress.setCurrentPageNumber(currentPage);
-            progress.setFavorite(false);
-
-            progressRepo.save(progress); 
-        }
+    private boolean isAdmin(HttpSession session) {
+        UUID uuid = (UUID) session.getAttribute("userUuid");
+        return uuid != null && accountRepo.isAdminByUuid(uuid);
     }
 
     /**
-     * Get a paginated list of book pages for a given book ID, ordered by page number.
-     * @param bookId The UUID of the book.
-     * @param pageNumber The page number of the book.
-     * @param pageSize The size of the page.
-     * @return A paginated list of BookPageCache entities.
+     * Checks whether a book's pages are ready to be read. Books uploaded before
+     * background ingestion existed have no state; they are marked done (and their
+     * page count backfilled if missing) if their pages are already cached,
+     * otherwise they are queued now. A book left queued or running with no
+     * ingestion in flight (the queue was full, or the run never started) is
+     * queued again. Concurrent opens of the same book share one ingestion.
+     * 
+     * @param book The book being opened.
+     * @return null if the pages are ready, otherwise the response to send back.
      */
-    public Page<BookPageCache> getBookPageCacheByBookId(UUID bookId, int pageNumber, int pageSize) {
-        return bookPageCacheRepo.findByBookIdOrderByPageNumberAsc(
-                bookId,
-                PageRequest.of(pageNumber, pageSize));
+    private ResponseEntity<?> checkIngestionState(Book book) {
+        IngestionState state = book.getIngestionState();
+        if (state == IngestionState.DONE)
+            return null;
+
+        if (state == null) {
+            if (!bookIngestionService.isInFlight(book.getUuid())
+                    && bookPageCacheRepo.existsByBookId(book.getUuid())) {
+                if (book.getPages() == 0) {
+                    book.setPages((int) bookPageCacheRepo.countByBookId(book.getUuid()));
+                    bookRepo.updatePagesByUuid(book.getUuid(), book.getPages());
+                }
+                bookRepo.updateIngestionStateByUuid(book.getUuid(), IngestionState.DONE);
+                return null;
+            }
+            bookIngestionService.enqueue(book.getUuid());
+            state = IngestionState.QUEUED;
+        }
+
+        if ((state == IngestionState.QUEUED || state == IngestionState.RUNNING)
+                && !bookIngestionService.isInFlight(book.getUuid())) {
+            // A finishing run stores its final state before releasing the book, so re-read it now
+            Book current = bookRepo.findByUuid(book.getUuid());
+            state = current != null ? current.getIngestionState() : state;
+            if (state == IngestionState.DONE)
+                return null;
+            if (state == IngestionState.QUEUED || state == IngestionState.RUNNING) {
+                bookIngestionService.enqueue(book.getUuid());
+                state = IngestionState.QUEUED;
+            }
+        }
+
+        if (state == IngestionState.FAILED)
+            return ResponseEntity.internalServerError().body(Map.of("ingestionState", state));
+
+        return ResponseEntity.accepted().body(Map.of("ingestionState", state));
     }
-    
 }
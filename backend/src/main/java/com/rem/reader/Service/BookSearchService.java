@@ -0,0 +1,209 @@
+package com.rem.reader.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.jsoup.Jsoup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.util.HtmlUtils;
+
+import com.rem.reader.DTO.PageSearchHitDTO;
+import com.rem.reader.Models.Book;
+import com.rem.reader.Models.BookPageCache;
+import com.rem.reader.Models.IngestionState;
+import com.rem.reader.Repo.BookPageCacheRepo;
+import com.rem.reader.Repo.BookRepo;
+
+import jakarta.annotation.PostConstruct;
+
+@Service
+public class BookSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchService.class);
+
+    @Autowired
+    BookRepo bookRepo;
+
+    @Autowired
+    BookPageCacheRepo bookPageCacheRepo;
+
+    @Autowired
+    @Qualifier("maintenanceExecutor")
+    ThreadPoolTaskExecutor maintenanceExecutor;
+
+    @Value("${reader.search.default-results:20}")
+    private int defaultResults;
+
+    @Value("${reader.search.max-results:100}")
+    private int maxResults;
+
+    @Value("${reader.ingestion.chunk-pages:200}")
+    private int chunkPages;
+
+    // Public methods
+
+    /**
+     * Creates the search index on startup if it does not exist yet.
+     */
+    @PostConstruct
+    public void init() {
+        bookPageCacheRepo.createSearchIndex();
+    }
+
+    /**
+     * Strips the markup from page content, leaving the text that is indexed.
+     * 
+     * @param html The page content.
+     * @return The text of the page, with whitespace collapsed.
+     */
+    public String toSearchText(String html) {
+        return Jsoup.parseBodyFragment(html).text();
+    }
+
+    /**
+     * Searches the text of every book, or of one book, and returns the best
+     * matching pages. Each word of the query must appear on the page; the last
+     * word also matches as a prefix so results can follow the user's typing.
+     * 
+     * @param query    The words to search for.
+     * @param bookUuid The UUID of the book to search in, or null to search every book.
+     * @param limit    The maximum number of results, or null for the default.
+     * @return A ResponseEntity containing the ranked results, or an error message.
+     */
+    public ResponseEntity<?> search(String query, UUID bookUuid, Integer limit) {
+        String terms = toFtsTerms(query);
+        if (terms == null)
+            return ResponseEntity.badRequest().body("Search query must contain at least one word");
+
+        try {
+            if (bookUuid != null && bookRepo.findByUuid(bookUuid) == null)
+                return ResponseEntity.notFound().build();
+
+            int results = Math.max(1, Math.min(limit != null ? limit : defaultResults, maxResults));
+            List<PageSearchHitDTO> hits = bookPageCacheRepo.searchPages(terms, bookUuid, results);
+
+            Set<UUID> bookUuids = new HashSet<>();
+            hits.forEach(hit -> bookUuids.add(hit.getBookUuid()));
+            Map<UUID, Book> books = bookRepo.findByUuidIn(bookUuids).stream()
+                    .collect(Collectors.toMap(Book::getUuid, Function.identity()));
+
+            List<Map<String, Object>> response = new ArrayList<>();
+            for (PageSearchHitDTO hit : hits) {
+                Book book = books.get(hit.getBookUuid());
+                // The index can briefly outlive a book that is being deleted
+                if (book == null)
+                    continue;
+
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("bookUuid", hit.getBookUuid());
+                entry.put("title", book.getTitle());
+                entry.put("author", book.getAuthor());
+                entry.put("pageNumber", hit.getPageNumber());
+                entry.put("snippet", toSnippetHtml(hit.getSnippet()));
+                response.add(entry);
+            }
+            return ResponseEntity.ok().body(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Failed to search books: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes books that were paginated before the search index existed. Runs
+     * once in the background after startup and is a no-op when every book is
+     * indexed.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void indexExistingBooks() {
+        maintenanceExecutor.execute(() -> {
+            try {
+                int indexed = 0;
+                for (Book book : bookRepo.findByIngestionStateIn(List.of(IngestionState.DONE))) {
+                    if (book.getPages() > 0 && !bookPageCacheRepo.hasSearchText(book.getUuid())) {
+                        indexBook(book.getUuid(), book.getPages());
+                        indexed++;
+                    }
+                }
+                if (indexed > 0)
+                    log.info("Indexed {} books for search", indexed);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // Private methods
+
+    /**
+     * Adds the stored pages of a book to the search index, one chunk at a time.
+     * 
+     * @param bookUuid The UUID of the book.
+     * @param pages    The number of pages of the book.
+     */
+    private void indexBook(UUID bookUuid, int pages) {
+        bookPageCacheRepo.deleteSearchText(bookUuid);
+        for (int from = 0; from < pages; from += chunkPages) {
+            List<BookPageCache> chunk = bookPageCacheRepo
+                    .findByBookIdAndPageNumberBetweenOrderByPageNumberAsc(bookUuid, from, from + chunkPages - 1);
+            for (BookPageCache page : chunk)
+                page.setSearchText(toSearchText(page.getContent()));
+            bookPageCacheRepo.insertSearchText(chunk);
+        }
+    }
+
+    /**
+     * Turns a user's query into an FTS5 query. Every word is quoted so that
+     * FTS5 operators and punctuation in the input are taken literally.
+     * 
+     * @param query The query as typed.
+     * @return The FTS5 query, or null if the query has no words.
+     */
+    private static String toFtsTerms(String query) {
+        if (query == null)
+            return null;
+
+        List<String> words = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            String cleaned = word.replace("\"", "");
+            if (!cleaned.isBlank())
+                words.add("\"" + cleaned + "\"");
+        }
+        if (words.isEmpty())
+            return null;
+
+        int last = words.size() - 1;
+        words.set(last, words.get(last) + "*");
+        return String.join(" ", words);
+    }
+
+    /**
+     * Escapes a snippet for display and turns the match markers into mark elements.
+     * 
+     * @param snippet The snippet with matches wrapped in STX and ETX.
+     * @return The snippet as HTML.
+     */
+    private static String toSnippetHtml(String snippet) {
+        if (snippet == null)
+            return "";
+        return HtmlUtils.htmlEscape(snippet)
+                .replace("\u0002", "<mark>")
+                .replace("\u0003", "</mark>");
+    }
+}
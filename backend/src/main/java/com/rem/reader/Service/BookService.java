@@ -2,36 +2,65 @@ package com.rem.reader.Service;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.apache.tika.exception.TikaException;
 import org.apache.tika.metadata.Metadata;
 import org.apache.tika.parser.AutoDetectParser;
 import org.apache.tika.parser.ParseContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.MediaType;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 import org.xml.sax.SAXException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rem.reader.DTO.BookListItemDTO;
 import com.rem.reader.DTO.EditBookRequestDTO;
+import com.rem.reader.DTO.LibraryCursorDTO;
+import com.rem.reader.DTO.LibraryFilter;
+import com.rem.reader.DTO.LibraryPageDTO;
+import com.rem.reader.DTO.LibrarySort;
 import com.rem.reader.Models.Book;
+import com.rem.reader.Models.IngestionState;
 import com.rem.reader.Models.Progress;
 import com.rem.reader.Repo.BookPageCacheRepo;
 import com.rem.reader.Repo.BookRepo;
 import com.rem.reader.Repo.ProgressRepo;
+import com.rem.reader.Service.EpubPackageService.EpubPackage;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 
 @Service
 public class BookService {
 
+    private static final Logger log = LoggerFactory.getLogger(BookService.class);
+
     @Autowired
     private BookRepo bookRepo;
 
@@ -41,7 +70,71 @@ public class BookService {
     @Autowired
     private BookPageCacheRepo bookPageCacheRepo;
 
-    private final Path rootDir = Paths.get("data/books");
+    @Autowired
+    private BookIngestionService bookIngestionService;
+
+    @Autowired
+    private BookPageCacheService bookPageCacheService;
+
+    @Autowired
+    private ProgressService progressService;
+
+    @Autowired
+    private PageCompressionService pageCompressionService;
+
+    @Autowired
+    private PageResponseService pageResponseService;
+
+    @Autowired
+    private FileResponseService fileResponseService;
+
+    @Autowired
+    private EpubAssetService epubAssetService;
+
+    @Autowired
+    private EpubPackageService epubPackageService;
+
+    @Autowired
+    private CoverThumbnailService coverThumbnailService;
+
+    @Autowired
+    @Qualifier("maintenanceExecutor")
+    private ThreadPoolTaskExecutor maintenanceExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${reader.library.page-size:50}")
+    private int libraryPageSize;
+
+    @Value("${reader.library.max-page-size:200}")
+    private int libraryMaxPageSize;
+
+    @Value("${reader.books.dir:data/books}")
+    private Path rootDir;
+
+    private final Map<String, Object> uploadLocks = new ConcurrentHashMap<>();
+
+    private Timer uploadCopyTimer;
+    private Timer uploadMetadataTimer;
+    private Timer uploadCoverTimer;
+
+    private static final CacheControl COVER_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(7)).cachePublic();
+
+    private static final CacheControl DOWNLOAD_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(7)).cachePrivate();
+
+    /**
+     * Registers the timers of the upload stages.
+     */
+    @PostConstruct
+    public void init() {
+        uploadCopyTimer = uploadStageTimer("copy");
+        uploadMetadataTimer = uploadStageTimer("metadata");
+        uploadCoverTimer = uploadStageTimer("cover");
+    }
 
     // Public methods
 
@@ -68,7 +161,8 @@ public class BookService {
                     "uuid", book.getUuid(),
                     "title", book.getTitle(),
                     "author", book.getAuthor(),
-                    "currentPage", progress != null ? progress.getCurrentPageNumber() : 0,
+                    "currentPage", progressService.getCurrentPage(userUuid, uuid,
+                            progress != null ? progress.getCurrentPageNumber() : 0),
                     "description", book.getDescription(),
                     "coverImageUrl", coverUrl
             ));
@@ -80,11 +174,19 @@ public class BookService {
 
     /**
      * Retrieves the cover image of a book by its UUID.
+     * Covers never change once extracted, so they are sent with validators and
+     * a long max-age; a revalidation that still matches gets a 304.
      * 
      * @param uuid The UUID of the book.
+     * @param size The display width in pixels to serve a thumbnail for, or null for the full cover.
+     * @param request The current request.
+     * @param response The current response.
      * @return A ResponseEntity containing the cover image or an error message.
      */
-    public ResponseEntity<?> getBookCover(UUID uuid) {
+    public ResponseEntity<?> getBookCover(UUID uuid, Integer size, HttpServletRequest request,
+            HttpServletResponse response) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String variant = "none";
         try {
             Book book = bookRepo.findByUuid(uuid);
             if (book == null) {
@@ -98,55 +200,114 @@ public class BookService {
     
             Path imagePath;
             if (coverPath != null && Files.exists(coverPath) && Files.isReadable(coverPath)) {
-                imagePath = coverPath;
+                imagePath = size != null && size > 0
+                        ? coverThumbnailService.getThumbnail(coverPath, size)
+                        : coverPath;
+                variant = imagePath.equals(coverPath) ? "full" : "thumbnail";
             } else {
                 imagePath = Paths.get("data/noCover.png");
-                if (!Files.exists(imagePath)) {
-                    return ResponseEntity.notFound().build(); 
-                }
+                variant = "placeholder";
             }
     
-            UrlResource resource = new UrlResource(imagePath.toUri());
-            String contentType = Files.probeContentType(imagePath);
-    
-            return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType != null ? contentType : "image/png"))
-                    .body(resource);
+            return fileResponseService.serveFile(imagePath, request, response, COVER_CACHE_CONTROL, null);
     
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().body("Failed to retrieve book cover: " + e.getMessage());
+        } finally {
+            sample.stop(meterRegistry.timer("reader.covers.serve", "variant", variant));
         }
     }
     
+    /**
+     * Downloads the original EPUB file of a book. Supports byte ranges, so an
+     * interrupted download can be resumed.
+     * 
+     * @param uuid The UUID of the book.
+     * @param request The current request.
+     * @param response The current response.
+     * @return A ResponseEntity containing the EPUB file or an error message.
+     */
+    public ResponseEntity<?> downloadBook(UUID uuid, HttpServletRequest request, HttpServletResponse response) {
+        try {
+            Book book = bookRepo.findByUuid(uuid);
+            if (book == null) return ResponseEntity.notFound().build();
+
+            Path epubPath = Paths.get(book.getFilePath());
+            return fileResponseService.serveFile(epubPath, request, response, DOWNLOAD_CACHE_CONTROL,
+                    epubPath.getFileName().toString());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Failed to download book: " + e.getMessage());
+        }
+    }
+
     /**
      * Retrieves all books from the database and returns their details along with the user's progress.
+     * Books and progress are read with a single joined query.
      * 
      * @param session The HTTP session containing user information.
      * @return A ResponseEntity containing the list of books and their details, or an error message.
      */
     public ResponseEntity<?> getAllBooks(HttpSession session) {
         try {
-            var books = bookRepo.findAll();
+            UUID userUuid = (UUID) session.getAttribute("userUuid");
+
+            var books = bookRepo.findAllWithProgress(userUuid);
             if (books.isEmpty()) return ResponseEntity.noContent().build();
 
+            var response = books.stream().map(book -> libraryEntry(userUuid, book)).toList();
+            
+            return ResponseEntity.ok().body(response);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Failed to retrieve books: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Retrieves one page of the library, sorted and filtered, along with the
+     * user's progress. Pages are addressed by an opaque cursor rather than an
+     * offset, so fetching a page costs the same however large the library is.
+     * 
+     * @param sort The sort key: title, author, uploaded_at or last_read.
+     * @param direction The sort direction: asc or desc.
+     * @param filter Which books to include: all, favorites or in-progress.
+     * @param cursor The nextCursor of the previous page, or null for the first page.
+     * @param limit The maximum number of books to return, or null for the default.
+     * @param session The HTTP session containing user information.
+     * @return A ResponseEntity containing the books and the cursor of the next page, or an error message.
+     */
+    public ResponseEntity<?> getLibraryPage(String sort, String direction, String filter, String cursor,
+            Integer limit, HttpSession session) {
+        LibrarySort librarySort = LibrarySort.fromParam(sort);
+        if (librarySort == null)
+            return ResponseEntity.badRequest().body("Unknown sort: " + sort);
+
+        LibraryFilter libraryFilter = LibraryFilter.fromParam(filter);
+        if (libraryFilter == null)
+            return ResponseEntity.badRequest().body("Unknown filter: " + filter);
+
+        if (!"asc".equalsIgnoreCase(direction) && !"desc".equalsIgnoreCase(direction))
+            return ResponseEntity.badRequest().body("Direction must be asc or desc");
+
+        LibraryCursorDTO after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            after = decodeCursor(cursor);
+            if (after == null)
+                return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+
+        try {
             UUID userUuid = (UUID) session.getAttribute("userUuid");
+            int pageSize = Math.max(1, Math.min(limit != null ? limit : libraryPageSize, libraryMaxPageSize));
 
-            var response = books.stream().<Map<String, Object>>map(book -> {
-                String coverUrl = "http://localhost:8080/api/books/" + book.getUuid() + "/cover";
-                Progress progress = progressRepo.findByAccountUuidAndBookUuid(userUuid, book.getUuid());
-                
-                return Map.<String, Object>of(
-                    "uuid", book.getUuid(),
-                    "title", book.getTitle(),
-                    "author", book.getAuthor(),
-                    "totalPages", book.getPages(),
-                    "currentPage", progress != null ? progress.getCurrentPageNumber() : 0,
-                    "favorite", progress != null ? progress.isFavorite() : false,
-                    "coverImageUrl", coverUrl
-                );
-            });
-            
+            LibraryPageDTO page = bookRepo.findLibraryPage(userUuid, librarySort, "desc".equalsIgnoreCase(direction),
+                    libraryFilter, after, pageSize);
+
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("books", page.getBooks().stream().map(book -> libraryEntry(userUuid, book)).toList());
+            response.put("nextCursor", page.getNextCursor() != null ? encodeCursor(page.getNextCursor()) : null);
             return ResponseEntity.ok().body(response);
         } catch (Exception e) {
             e.printStackTrace();
@@ -156,48 +317,57 @@ public class BookService {
 
     /**
      * Uploads a book file, extracts its metadata, and saves it to the database.
+     * The upload is hashed while it is written to disk; if the same file has
+     * been uploaded before, the existing book is returned and the copy is
+     * discarded. Pagination is handed to the background ingestion pool.
      * 
      * @param file The book file to upload.
      * @return A ResponseEntity containing the book details or an error message.
      */
     public ResponseEntity<?> uploadBook(MultipartFile file) {
+        Path upload = null;
         try {
-            UUID uuid = UUID.randomUUID();
-            Book book = new Book();
-            book.setUuid(uuid);
-
-            Path bookFolder = rootDir.resolve(uuid.toString());
-            Files.createDirectories(bookFolder);
-
-            Path epubPath = bookFolder.resolve(file.getOriginalFilename());
-            Files.copy(file.getInputStream(), epubPath, StandardCopyOption.REPLACE_EXISTING);
-            book.setFilePath(epubPath.toString());
-
-            Map<String, String> metadata = extractMetaData(epubPath);
-            if (metadata.get("title") != null) book.setTitle(metadata.get("title"));
-            if (metadata.get("author") != null) book.setAuthor(metadata.get("author"));
-            if (metadata.get("description") != null) book.setDescription(metadata.get("description"));
-
-            String coverImageFilename = extractCoverImage(epubPath, bookFolder);
-            if (coverImageFilename != null) {
-                book.setCoverImagePath(coverImageFilename);
+            Files.createDirectories(rootDir);
+            upload = Files.createTempFile(rootDir, ".upload-", ".tmp");
+            Timer.Sample copy = Timer.start(meterRegistry);
+            String contentHash = copyAndHash(file.getInputStream(), upload);
+            copy.stop(uploadCopyTimer);
+
+            // Identical uploads racing each other must not both pass the duplicate check
+            Object uploadLock = uploadLocks.computeIfAbsent(contentHash, key -> new Object());
+            try {
+                synchronized (uploadLock) {
+                    Book existing = bookRepo.findFirstByContentHash(contentHash);
+                    if (existing != null) {
+                        if (existing.getIngestionState() == IngestionState.FAILED) {
+                            bookIngestionService.enqueue(existing.getUuid());
+                            existing.setIngestionState(IngestionState.QUEUED);
+                        }
+                        return ResponseEntity.ok().body(uploadResponse(existing, true));
+                    }
+
+                    Book book = createBook(upload, file.getOriginalFilename(), contentHash);
+                    bookIngestionService.enqueue(book.getUuid());
+                    if (book.getCoverImagePath() != null) {
+                        coverThumbnailService.generateAsync(
+                                Paths.get(book.getFilePath()).resolveSibling(book.getCoverImagePath()));
+                    }
+                    return ResponseEntity.ok().body(uploadResponse(book, false));
+                }
+            } finally {
+                uploadLocks.remove(contentHash, uploadLock);
             }
-
-            bookRepo.save(book);
-
-            String coverUrl = book.getCoverImagePath() != null
-                    ? "http://localhost:8080/api/books/" + uuid + "/cover"
-                    : "";
-
-            return ResponseEntity.ok().body(Map.of(
-                    "uuid", uuid,
-                    "title", book.getTitle(),
-                    "author", book.getAuthor(),
-                    "coverImageUrl", coverUrl
-            ));
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().body("Failed to upload book: " + e.getMessage());
+        } finally {
+            if (upload != null) {
+                try {
+                    Files.deleteIfExists(upload);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
         }
     }
 
@@ -234,7 +404,9 @@ public class BookService {
     }
 
     /**
-     * Deletes a book and its associated files from the server.
+     * Deletes a book and its associated files from the server. An ingestion
+     * of the book still in flight is cancelled first, so it stops writing and
+     * removes its own pages rather than leaving rows for a deleted book.
      * 
      * @param uuid The UUID of the book to delete.
      * @return A ResponseEntity indicating the success or failure of the operation.
@@ -245,6 +417,8 @@ public class BookService {
             if (book == null) return ResponseEntity.notFound().build();
 
             Path bookFolder = Paths.get(book.getFilePath()).getParent();
+            bookIngestionService.cancel(uuid);
+            epubAssetService.closeBook(uuid);
 
             if (Files.exists(bookFolder)) {
                 Files.walk(bookFolder)
@@ -259,8 +433,13 @@ public class BookService {
             }
 
             bookRepo.delete(book);
+            progressService.discardBook(uuid);
             progressRepo.deleteByBookUuid(uuid);
             bookPageCacheRepo.deleteByBookUuid(uuid);
+            bookPageCacheRepo.deleteSearchText(uuid);
+            bookPageCacheService.invalidateBook(uuid);
+            pageCompressionService.invalidateBook(uuid);
+            pageResponseService.invalidateBook(uuid);
             return ResponseEntity.ok().body("Book deleted successfully");
 
         } catch (Exception e) {
@@ -269,10 +448,233 @@ public class BookService {
         }
     }
 
+    /**
+     * Computes the content hash of books uploaded before hashes were stored,
+     * so duplicates of them are detected too. Runs once in the background
+     * after startup and is a no-op when every book has a hash.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillContentHashes() {
+        maintenanceExecutor.execute(() -> {
+            int hashed = 0;
+            for (Book book : bookRepo.findByContentHashIsNull()) {
+                try {
+                    Path epubPath = Paths.get(book.getFilePath());
+                    if (!Files.isRegularFile(epubPath))
+                        continue;
+                    bookRepo.updateContentHashByUuid(book.getUuid(), hashFile(epubPath));
+                    hashed++;
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            if (hashed > 0)
+                log.info("Computed content hashes for {} books", hashed);
+        });
+    }
+
     // Private methods
 
     /**
-     * Extracts metadata from an EPUB file.
+     * Builds the timer of one upload stage.
+     *
+     * @param stage The stage name: copy, metadata or cover.
+     * @return The registered timer.
+     */
+    private Timer uploadStageTimer(String stage) {
+        return Timer.builder("reader.upload.stage")
+                .description("Time spent in each stage of a book upload")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the library entry of a book, with a buffered page turn taking
+     * precedence over the stored current page.
+     * 
+     * @param userUuid The UUID of the user.
+     * @param book The book and the user's stored progress.
+     * @return A map with the fields shown in the library.
+     */
+    private Map<String, Object> libraryEntry(UUID userUuid, BookListItemDTO book) {
+        String coverUrl = "http://localhost:8080/api/books/" + book.getUuid() + "/cover";
+        int storedPage = book.getCurrentPageNumber() != null ? book.getCurrentPageNumber() : 0;
+
+        // Title and author may be missing from the EPUB, so Map.of cannot be used here
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("uuid", book.getUuid());
+        entry.put("title", book.getTitle());
+        entry.put("author", book.getAuthor());
+        entry.put("totalPages", book.getPages());
+        entry.put("currentPage", progressService.getCurrentPage(userUuid, book.getUuid(), storedPage));
+        entry.put("favorite", book.getFavorite() != null ? book.getFavorite() : false);
+        entry.put("coverImageUrl", coverUrl);
+        return entry;
+    }
+
+    /**
+     * Encodes a library cursor as URL-safe base64 JSON.
+     * 
+     * @param cursor The cursor to encode.
+     * @return The opaque cursor string.
+     * @throws IOException If the cursor cannot be serialized.
+     */
+    private String encodeCursor(LibraryCursorDTO cursor) throws IOException {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("v", cursor.getValue());
+        fields.put("i", cursor.getId());
+        fields.put("u", cursor.isUnread());
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(objectMapper.writeValueAsBytes(fields));
+    }
+
+    /**
+     * Decodes a cursor produced by encodeCursor.
+     * 
+     * @param cursor The opaque cursor string.
+     * @return The cursor, or null if the string is not a valid cursor.
+     */
+    private LibraryCursorDTO decodeCursor(String cursor) {
+        try {
+            Map<?, ?> fields = objectMapper.readValue(Base64.getUrlDecoder().decode(cursor), Map.class);
+            Object value = fields.get("v");
+            if (!(fields.get("i") instanceof Number id) || !(fields.get("u") instanceof Boolean unread)
+                    || (value != null && !(value instanceof String) && !(value instanceof Number)))
+                return null;
+            return new LibraryCursorDTO(value instanceof Number number ? number.longValue() : value,
+                    id.longValue(), unread);
+        } catch (IllegalArgumentException | IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Moves an uploaded file into a new book folder, extracts its metadata and
+     * cover, and saves the book as queued for ingestion.
+     * 
+     * @param upload The uploaded file.
+     * @param fileName The original file name.
+     * @param contentHash The hex-encoded SHA-256 of the file.
+     * @return The saved Book entity.
+     * @throws IOException If an I/O error occurs.
+     * @throws TikaException If a Tika error occurs.
+     * @throws SAXException If a SAX error occurs.
+     */
+    private Book createBook(Path upload, String fileName, String contentHash) throws IOException, TikaException, SAXException {
+        UUID uuid = UUID.randomUUID();
+        Book book = new Book();
+        book.setUuid(uuid);
+        book.setContentHash(contentHash);
+
+        Path bookFolder = rootDir.resolve(uuid.toString());
+        Files.createDirectories(bookFolder);
+
+        Path epubPath = bookFolder.resolve(fileName);
+        Files.move(upload, epubPath, StandardCopyOption.REPLACE_EXISTING);
+        book.setFilePath(epubPath.toString());
+
+        // Metadata and cover come straight from the OPF; Tika is only a fallback for broken packages
+        String coverImageFilename = null;
+        try (ZipFile zipFile = new ZipFile(epubPath.toFile())) {
+            Timer.Sample metadataStage = Timer.start(meterRegistry);
+            EpubPackage epub = epubPackageService.readPackage(zipFile);
+            if (epub != null) {
+                if (epub.title() != null) book.setTitle(epub.title());
+                if (epub.author() != null) book.setAuthor(epub.author());
+                if (epub.description() != null) book.setDescription(epub.description());
+            } else {
+                Map<String, String> metadata = extractMetaData(epubPath);
+                if (metadata.get("title") != null) book.setTitle(metadata.get("title"));
+                if (metadata.get("author") != null) book.setAuthor(metadata.get("author"));
+                if (metadata.get("description") != null) book.setDescription(metadata.get("description"));
+            }
+            metadataStage.stop(uploadMetadataTimer);
+
+            Timer.Sample coverStage = Timer.start(meterRegistry);
+            if (epub != null && epub.coverPath() != null)
+                coverImageFilename = epubPackageService.copyCover(zipFile, epub.coverPath(), bookFolder);
+            if (coverImageFilename == null)
+                coverImageFilename = extractCoverImage(epubPath, bookFolder);
+            coverStage.stop(uploadCoverTimer);
+        }
+
+        if (coverImageFilename != null) {
+            book.setCoverImagePath(coverImageFilename);
+        }
+
+        book.setIngestionState(IngestionState.QUEUED);
+        return bookRepo.save(book);
+    }
+
+    /**
+     * Builds the upload response for a book.
+     * 
+     * @param book The uploaded or previously existing book.
+     * @param duplicate Whether the upload matched an existing book.
+     * @return A map of the book details.
+     */
+    private static Map<String, Object> uploadResponse(Book book, boolean duplicate) {
+        String coverUrl = book.getCoverImagePath() != null
+                ? "http://localhost:8080/api/books/" + book.getUuid() + "/cover"
+                : "";
+
+        // Title and author may be missing from the EPUB, so Map.of cannot be used here
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("uuid", book.getUuid());
+        response.put("title", book.getTitle());
+        response.put("author", book.getAuthor());
+        response.put("coverImageUrl", coverUrl);
+        response.put("ingestionState", book.getIngestionState());
+        response.put("duplicate", duplicate);
+        return response;
+    }
+
+    /**
+     * Copies a stream to a file while computing its SHA-256.
+     * 
+     * @param in The stream to copy.
+     * @param target The file to write.
+     * @return The hex-encoded SHA-256 of the copied bytes.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static String copyAndHash(InputStream in, Path target) throws IOException {
+        MessageDigest digest = sha256();
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.FILE, "copy upload");
+                DigestInputStream digestStream = new DigestInputStream(in, digest)) {
+            Files.copy(digestStream, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Computes the SHA-256 of a file.
+     * 
+     * @param file The file to hash.
+     * @return The hex-encoded SHA-256 of the file.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static String hashFile(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (DigestInputStream digestStream = new DigestInputStream(Files.newInputStream(file), digest)) {
+            digestStream.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * Creates a SHA-256 message digest.
+     * 
+     * @return A new MessageDigest.
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Extracts metadata from an EPUB file. Package-private for the benchmarks.
      * 
      * @param filePath The path to the EPUB file.
      * @return A map containing the extracted metadata.
@@ -280,7 +682,7 @@ public class BookService {
      * @throws TikaException If a Tika error occurs.
      * @throws SAXException If a SAX error occurs.
      */
-    private static Map<String, String> extractMetaData(Path filePath) throws IOException, TikaException, SAXException {
+    static Map<String, String> extractMetaData(Path filePath) throws IOException, TikaException, SAXException {
         Metadata metadata = new Metadata();
         try (InputStream stream = Files.newInputStream(filePath)) {
             AutoDetectParser parser = new AutoDetectParser();
@@ -311,13 +713,14 @@ public class BookService {
 
     /**
      * Extracts the cover image from an EPUB file and saves it to the specified folder.
+     * Package-private for the benchmarks.
      * 
      * @param epubPath The path to the EPUB file.
      * @param bookFolder The folder to save the cover image.
      * @return The name of the cover image file, or null if not found.
      * @throws IOException If an I/O error occurs.
      */
-    private String extractCoverImage(Path epubPath, Path bookFolder) throws IOException {
+    static String extractCoverImage(Path epubPath, Path bookFolder) throws IOException {
         try (ZipInputStream zis = new ZipInputStream(Files.newInputStream(epubPath))) {
             ZipEntry entry;
             while ((entry = zis.getNextEntry()) != null) {
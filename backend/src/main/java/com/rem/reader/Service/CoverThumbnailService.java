@@ -0,0 +1,261 @@
+package com.rem.reader.Service;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+@Service
+public class CoverThumbnailService {
+
+    @Autowired
+    @Qualifier("thumbnailExecutor")
+    ThreadPoolTaskExecutor thumbnailExecutor;
+
+    @Value("${reader.covers.thumbnail-widths:240,480,960}")
+    private int[] widths;
+
+    @Value("${reader.covers.thumbnail-quality:0.85}")
+    private float quality;
+
+    private static final String THUMBNAIL_DIR = "thumbs";
+
+    // One generation per cover at a time; a concurrent request waits for it instead of redoing it
+    private final Map<Path, Object> generationLocks = new ConcurrentHashMap<>();
+
+    // Public methods
+
+    /**
+     * Generates the thumbnails of a cover on the background pool.
+     *
+     * @param coverPath The full-size cover image.
+     */
+    public void generateAsync(Path coverPath) {
+        thumbnailExecutor.execute(() -> {
+            try {
+                generate(coverPath);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    /**
+     * Returns the thumbnail to serve for a requested display width: the
+     * smallest configured width that is at least as wide, or the largest one.
+     * Thumbnails that are missing or older than the cover, e.g. for books
+     * uploaded before thumbnails existed, are generated on the spot.
+     *
+     * @param coverPath The full-size cover image.
+     * @param size      The requested display width in pixels.
+     * @return The thumbnail, or the cover itself if it is not larger than the
+     *         thumbnail or cannot be decoded.
+     * @throws IOException If the thumbnails cannot be written.
+     */
+    public Path getThumbnail(Path coverPath, int size) throws IOException {
+        int[] sorted = sortedWidths();
+        int width = Arrays.stream(sorted)
+                .filter(candidate -> candidate >= size)
+                .findFirst()
+                .orElse(sorted[sorted.length - 1]);
+
+        Path thumbnail = thumbnailPath(coverPath, width);
+        if (isFresh(thumbnail, coverPath))
+            return thumbnail;
+
+        int coverWidth = readWidth(coverPath);
+        if (coverWidth <= 0 || width >= coverWidth)
+            return coverPath;
+
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.FILE, "generate thumbnails")) {
+            generate(coverPath);
+        }
+        return isFresh(thumbnail, coverPath) ? thumbnail : coverPath;
+    }
+
+    // Private methods
+
+    /**
+     * Writes every configured thumbnail width of a cover that is missing or
+     * stale. Widths at or above the width of the cover itself are skipped;
+     * the cover is served for them.
+     *
+     * @param coverPath The full-size cover image.
+     * @throws IOException If the thumbnails cannot be written.
+     */
+    private void generate(Path coverPath) throws IOException {
+        Object lock = generationLocks.computeIfAbsent(coverPath, key -> new Object());
+        try {
+            synchronized (lock) {
+                int coverWidth = readWidth(coverPath);
+                int[] pending = Arrays.stream(sortedWidths())
+                        .filter(width -> width < coverWidth)
+                        .filter(width -> !isFresh(thumbnailPath(coverPath, width), coverPath))
+                        .toArray();
+                if (pending.length == 0)
+                    return;
+
+                BufferedImage cover = ImageIO.read(coverPath.toFile());
+                if (cover == null)
+                    return;
+
+                Files.createDirectories(coverPath.resolveSibling(THUMBNAIL_DIR));
+                for (int width : pending)
+                    writeJpeg(scale(cover, width), thumbnailPath(coverPath, width));
+            }
+        } finally {
+            generationLocks.remove(coverPath, lock);
+        }
+    }
+
+    /**
+     * Scales an image down to a width, keeping its aspect ratio. Large
+     * reductions are done in halving steps, which looks much better than a
+     * single bilinear pass at a fraction of the cost of area averaging.
+     *
+     * @param source The image to scale.
+     * @param width  The target width.
+     * @return An RGB image of the target width.
+     */
+    private static BufferedImage scale(BufferedImage source, int width) {
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+
+        do {
+            int nextWidth = Math.max(width, currentWidth / 2);
+            int nextHeight = nextWidth == width ? height : Math.max(height, currentHeight / 2);
+
+            BufferedImage next = new BufferedImage(nextWidth, nextHeight, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                // JPEG has no alpha; transparent covers get a white background
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, nextWidth, nextHeight);
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, nextWidth, nextHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+
+            current = next;
+            currentWidth = nextWidth;
+            currentHeight = nextHeight;
+        } while (currentWidth > width);
+
+        return current;
+    }
+
+    /**
+     * Writes an image as a JPEG. The file is written next to its destination
+     * and moved into place, so a reader never sees a partial thumbnail.
+     *
+     * @param image  The image to write.
+     * @param target The destination file.
+     * @throws IOException If the image cannot be written.
+     */
+    private void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(quality);
+
+        Path temp = Files.createTempFile(target.getParent(), ".thumb", ".tmp");
+        try {
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Reads the width of an image from its header without decoding it.
+     *
+     * @param image The image file.
+     * @return The width in pixels, or -1 if the format is not supported.
+     * @throws IOException If the file cannot be read.
+     */
+    private static int readWidth(Path image) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(image.toFile())) {
+            if (in == null)
+                return -1;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext())
+                return -1;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return reader.getWidth(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Checks whether a thumbnail exists and is at least as new as its cover.
+     *
+     * @param thumbnail The thumbnail file.
+     * @param coverPath The full-size cover image.
+     * @return true if the thumbnail can be served as is.
+     */
+    private static boolean isFresh(Path thumbnail, Path coverPath) {
+        try {
+            return Files.isRegularFile(thumbnail)
+                    && Files.getLastModifiedTime(thumbnail).compareTo(Files.getLastModifiedTime(coverPath)) >= 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns where the thumbnail of a cover at a given width is stored.
+     *
+     * @param coverPath The full-size cover image.
+     * @param width     The thumbnail width.
+     * @return The thumbnail path inside the book folder.
+     */
+    private static Path thumbnailPath(Path coverPath, int width) {
+        return coverPath.resolveSibling(THUMBNAIL_DIR).resolve("cover-" + width + ".jpg");
+    }
+
+    /**
+     * Returns the configured widths in ascending order.
+     *
+     * @return The sorted widths.
+     */
+    private int[] sortedWidths() {
+        return Arrays.stream(widths).sorted().toArray();
+    }
+}
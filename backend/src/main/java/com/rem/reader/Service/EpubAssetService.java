@@ -0,0 +1,356 @@
+package com.rem.reader.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Service
+public class EpubAssetService {
+
+    @Autowired
+    FileResponseService fileResponseService;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${reader.assets.mode:archive}")
+    private String mode;
+
+    @Value("${reader.assets.materialize-after:8}")
+    private int materializeAfter;
+
+    @Value("${reader.assets.max-open-archives:16}")
+    private int maxOpenArchives;
+
+    private static final String IMAGE_PATTERN = ".*\\.(jpg|jpeg|png|gif|svg)$";
+
+    // Open archives, one per recently read book; evicted handles close once their last reader is done
+    private Cache<UUID, ArchiveHandle> archives;
+
+    private final Cache<String, AtomicInteger> entryHits = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+
+    /**
+     * An open EPUB archive together with its central-directory index, which
+     * maps the asset file names used in page markup to archive entries. The
+     * pool holds one reference and every request in flight holds another, so
+     * the archive is only closed once it has been evicted and nobody is
+     * streaming from it.
+     */
+    private static final class ArchiveHandle {
+        final ZipFile zipFile;
+        final Map<String, ZipEntry> entries;
+        final long lastModified;
+        final AtomicInteger references = new AtomicInteger(1);
+
+        ArchiveHandle(ZipFile zipFile, Map<String, ZipEntry> entries, long lastModified) {
+            this.zipFile = zipFile;
+            this.entries = entries;
+            this.lastModified = lastModified;
+        }
+
+        boolean acquire() {
+            while (true) {
+                int current = references.get();
+                if (current == 0)
+                    return false;
+                if (references.compareAndSet(current, current + 1))
+                    return true;
+            }
+        }
+
+        void release() {
+            if (references.decrementAndGet() == 0) {
+                try {
+                    zipFile.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // Public methods
+
+    /**
+     * Builds the archive pool once the configured size is known.
+     */
+    @PostConstruct
+    public void init() {
+        archives = Caffeine.newBuilder()
+                .maximumSize(maxOpenArchives)
+                .<UUID, ArchiveHandle>removalListener((uuid, handle, cause) -> {
+                    if (handle != null)
+                        handle.release();
+                })
+                .build();
+    }
+
+    /**
+     * Whether assets are extracted to disk during ingestion. In the default
+     * archive mode they are read from the EPUB on demand instead.
+     *
+     * @return true if ingestion should copy assets to the assets folder.
+     */
+    public boolean extractsAssets() {
+        return "extract".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Serves an asset of a book. Files already in the assets folder (extracted
+     * by older ingestions or materialized earlier) are served from disk;
+     * anything else is streamed straight out of the EPUB. An entry that keeps
+     * being requested is materialized to the assets folder so later requests
+     * are served from disk, with sendfile where the connector supports it.
+     * Whichever copy answers, an asset found in the archive gets the ETag and
+     * modification time of its entry, so clients holding it keep getting
+     * 304s once it is materialized. Each call is timed under
+     * reader.assets.serve, tagged with where the asset came from.
+     *
+     * @param bookUuid     The UUID of the book.
+     * @param epubPath     The path to the EPUB file.
+     * @param assetName    The file name of the asset.
+     * @param request      The current request.
+     * @param response     The current response.
+     * @param cacheControl The Cache-Control policy for the asset.
+     * @return A ResponseEntity containing the asset, a 304, or a 404.
+     * @throws IOException If the asset cannot be read.
+     */
+    public ResponseEntity<?> serveAsset(UUID bookUuid, Path epubPath, String assetName, HttpServletRequest request,
+            HttpServletResponse response, CacheControl cacheControl) throws IOException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String source = "none";
+        try {
+            Path assetsDir = epubPath.getParent().resolve("assets");
+            Path assetPath = assetsDir.resolve(assetName).normalize();
+            if (!assetPath.startsWith(assetsDir))
+                return ResponseEntity.notFound().build();
+
+            if (!Files.isRegularFile(epubPath)) {
+                source = "disk";
+                return fileResponseService.serveFile(assetPath, request, response, cacheControl, null);
+            }
+
+            ArchiveHandle handle = acquire(bookUuid, epubPath);
+            try {
+                ZipEntry entry = handle.entries.get(assetName);
+                if (entry == null) {
+                    source = "disk";
+                    return fileResponseService.serveFile(assetPath, request, response, cacheControl, null);
+                }
+
+                if (Files.isRegularFile(assetPath)) {
+                    source = "disk";
+                    return fileResponseService.serveFile(assetPath, request, response, cacheControl, null,
+                            entryETag(entry), handle.lastModified);
+                }
+
+                if (shouldMaterialize(bookUuid, assetName)) {
+                    source = "materialized";
+                    materialize(handle, entry, assetsDir, assetPath);
+                    return fileResponseService.serveFile(assetPath, request, response, cacheControl, null,
+                            entryETag(entry), handle.lastModified);
+                }
+
+                source = "archive";
+                return serveEntry(handle, entry, assetName, request, response, cacheControl);
+            } finally {
+                handle.release();
+            }
+        } finally {
+            sample.stop(meterRegistry.timer("reader.assets.serve", "source", source));
+        }
+    }
+
+    /**
+     * Closes the archive of a book and forgets its request counters, e.g. when
+     * the book is deleted or re-ingested.
+     *
+     * @param bookUuid The UUID of the book.
+     */
+    public void closeBook(UUID bookUuid) {
+        archives.invalidate(bookUuid);
+        String prefix = bookUuid + "/";
+        entryHits.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * Closes all open archives on shutdown.
+     */
+    @PreDestroy
+    public void closeAll() {
+        archives.invalidateAll();
+        archives.cleanUp();
+    }
+
+    // Private methods
+
+    /**
+     * Returns the open archive of a book, opening it and indexing its central
+     * directory if it is not in the pool. The caller must release it.
+     *
+     * @param bookUuid The UUID of the book.
+     * @param epubPath The path to the EPUB file.
+     * @return An acquired archive handle.
+     * @throws IOException If the archive cannot be opened.
+     */
+    private ArchiveHandle acquire(UUID bookUuid, Path epubPath) throws IOException {
+        try {
+            while (true) {
+                ArchiveHandle handle = archives.get(bookUuid, key -> open(epubPath));
+                if (handle.acquire())
+                    return handle;
+                // Lost a race with eviction; the next lookup opens a fresh handle
+                archives.asMap().remove(bookUuid, handle);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Opens an EPUB and indexes its image entries by file name, which is how
+     * page markup refers to them.
+     *
+     * @param epubPath The path to the EPUB file.
+     * @return A new archive handle.
+     */
+    private ArchiveHandle open(Path epubPath) {
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.FILE, "open " + epubPath.getFileName())) {
+            ZipFile zipFile = new ZipFile(epubPath.toFile());
+            Map<String, ZipEntry> entries = new HashMap<>();
+            Enumeration<? extends ZipEntry> all = zipFile.entries();
+            while (all.hasMoreElements()) {
+                ZipEntry entry = all.nextElement();
+                if (!entry.isDirectory() && entry.getName().toLowerCase().matches(IMAGE_PATTERN))
+                    entries.putIfAbsent(Path.of(entry.getName()).getFileName().toString(), entry);
+            }
+            return new ArchiveHandle(zipFile, entries, Files.getLastModifiedTime(epubPath).toMillis());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Streams one archive entry, using the entry's CRC and size as its ETag.
+     *
+     * @param handle       The archive handle.
+     * @param entry        The entry to serve.
+     * @param assetName    The file name of the asset.
+     * @param request      The current request.
+     * @param response     The current response.
+     * @param cacheControl The Cache-Control policy for the asset.
+     * @return A 304 ResponseEntity, or null once the entry has been written.
+     * @throws IOException If the entry cannot be read.
+     */
+    private ResponseEntity<?> serveEntry(ArchiveHandle handle, ZipEntry entry, String assetName,
+            HttpServletRequest request, HttpServletResponse response, CacheControl cacheControl) throws IOException {
+        String etag = entryETag(entry);
+
+        if (new ServletWebRequest(request, response).checkNotModified(etag, handle.lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .lastModified(handle.lastModified)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaTypeFactory.getMediaType(assetName).orElse(MediaType.APPLICATION_OCTET_STREAM));
+        headers.setCacheControl(cacheControl);
+        if (!response.containsHeader(HttpHeaders.ETAG))
+            headers.setETag(etag);
+        if (!response.containsHeader(HttpHeaders.LAST_MODIFIED))
+            headers.setLastModified(handle.lastModified);
+        if (entry.getSize() >= 0)
+            headers.setContentLength(entry.getSize());
+
+        return fileResponseService.writeBody(response, HttpStatus.OK, headers, out -> {
+            try (RequestTrace.Span span = RequestTrace.span(RequestTrace.FILE, "stream " + entry.getName());
+                    InputStream in = handle.zipFile.getInputStream(entry)) {
+                in.transferTo(out);
+            }
+        });
+    }
+
+    /**
+     * Builds the ETag of an archive entry from its CRC and size, which
+     * identify its content wherever it is served from.
+     *
+     * @param entry The archive entry.
+     * @return The quoted ETag.
+     */
+    private static String entryETag(ZipEntry entry) {
+        return "\"" + Long.toHexString(entry.getCrc()) + "-" + Long.toHexString(entry.getSize()) + "\"";
+    }
+
+    /**
+     * Counts a request for an archive entry and reports whether it has become
+     * popular enough to be written to disk.
+     *
+     * @param bookUuid  The UUID of the book.
+     * @param assetName The file name of the asset.
+     * @return true once the entry reaches materialize-after requests.
+     */
+    private boolean shouldMaterialize(UUID bookUuid, String assetName) {
+        if (materializeAfter <= 0)
+            return false;
+        AtomicInteger hits = entryHits.get(bookUuid + "/" + assetName, key -> new AtomicInteger());
+        return hits.incrementAndGet() >= materializeAfter;
+    }
+
+    /**
+     * Copies an archive entry into the assets folder. The copy goes to a
+     * temporary file first so a concurrent reader never sees a partial file.
+     *
+     * @param handle    The archive handle.
+     * @param entry     The entry to copy.
+     * @param assetsDir The assets folder of the book.
+     * @param assetPath The destination file.
+     * @throws IOException If the entry cannot be copied.
+     */
+    private void materialize(ArchiveHandle handle, ZipEntry entry, Path assetsDir, Path assetPath) throws IOException {
+        Files.createDirectories(assetsDir);
+        Path temp = Files.createTempFile(assetsDir, ".asset", ".tmp");
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.FILE, "materialize " + entry.getName());
+                InputStream in = handle.zipFile.getInputStream(entry)) {
+            Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, assetPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+}
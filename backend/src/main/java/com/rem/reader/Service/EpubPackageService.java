@@ -0,0 +1,195 @@
+package com.rem.reader.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.springframework.stereotype.Service;
+
+@Service
+public class EpubPackageService {
+
+    private static final String CONTAINER_PATH = "META-INF/container.xml";
+
+    /**
+     * What the upload and ingestion paths need from an EPUB's package
+     * document. Paths are archive entry names, already resolved against the
+     * location of the OPF.
+     */
+    public record EpubPackage(String title, String author, String description, String coverPath,
+            List<String> spine) {}
+
+    // Public methods
+
+    /**
+     * Reads the package document of an EPUB. Only the central directory,
+     * META-INF/container.xml and the OPF are read, so this costs a few small
+     * random-access reads regardless of the size of the book.
+     *
+     * @param zipFile The open EPUB archive.
+     * @return The package metadata, or null if the EPUB has no readable package document.
+     * @throws IOException If the archive cannot be read.
+     */
+    public EpubPackage readPackage(ZipFile zipFile) throws IOException {
+        Document container = parseEntry(zipFile, CONTAINER_PATH);
+        if (container == null)
+            return null;
+
+        Element rootfile = container.selectFirst("rootfile[full-path]");
+        if (rootfile == null)
+            return null;
+        String opfPath = rootfile.attr("full-path");
+
+        Document opf = parseEntry(zipFile, opfPath);
+        if (opf == null)
+            return null;
+
+        Map<String, Element> manifest = new HashMap<>();
+        for (Element item : opf.select("manifest > item[id]"))
+            manifest.put(item.attr("id"), item);
+
+        List<String> spine = new ArrayList<>();
+        for (Element itemref : opf.select("spine > itemref[idref]")) {
+            Element item = manifest.get(itemref.attr("idref"));
+            if (item != null && item.hasAttr("href"))
+                spine.add(resolve(opfPath, item.attr("href")));
+        }
+
+        Element coverItem = findCoverItem(opf, manifest);
+        String coverPath = coverItem != null ? resolve(opfPath, coverItem.attr("href")) : null;
+
+        return new EpubPackage(
+                metadataText(opf, "dc|title"),
+                metadataText(opf, "dc|creator"),
+                metadataText(opf, "dc|description"),
+                coverPath,
+                Collections.unmodifiableList(spine));
+    }
+
+    /**
+     * Copies the cover image named by the package document into the book
+     * folder as cover.&lt;ext&gt;.
+     *
+     * @param zipFile    The open EPUB archive.
+     * @param coverPath  The archive entry name of the cover image.
+     * @param bookFolder The folder to save the cover image in.
+     * @return The name of the saved cover file, or null if the entry does not exist.
+     * @throws IOException If the cover cannot be copied.
+     */
+    public String copyCover(ZipFile zipFile, String coverPath, Path bookFolder) throws IOException {
+        int dot = coverPath.lastIndexOf('.');
+        if (dot < 0 || dot < coverPath.lastIndexOf('/'))
+            return null;
+
+        ZipEntry entry = zipFile.getEntry(coverPath);
+        if (entry == null)
+            return null;
+
+        String imageName = "cover" + coverPath.substring(dot).toLowerCase();
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.FILE, "copy cover");
+                InputStream in = zipFile.getInputStream(entry)) {
+            Files.copy(in, bookFolder.resolve(imageName), StandardCopyOption.REPLACE_EXISTING);
+        }
+        return imageName;
+    }
+
+    // Private methods
+
+    /**
+     * Finds the manifest item of the cover image. EPUB 3 marks it with the
+     * cover-image property, EPUB 2 points at it from a cover meta element, and
+     * failing both an image item whose id or href mentions the cover is used.
+     *
+     * @param opf      The package document.
+     * @param manifest The manifest items by id.
+     * @return The cover item, or null if the book declares none.
+     */
+    private static Element findCoverItem(Document opf, Map<String, Element> manifest) {
+        for (Element item : manifest.values()) {
+            if (item.hasAttr("href") && List.of(item.attr("properties").split("\\s+")).contains("cover-image"))
+                return item;
+        }
+
+        Element coverMeta = opf.selectFirst("metadata meta[name=cover][content]");
+        if (coverMeta != null) {
+            Element item = manifest.get(coverMeta.attr("content"));
+            if (item != null && item.hasAttr("href") && item.attr("media-type").startsWith("image/"))
+                return item;
+        }
+
+        for (Element item : manifest.values()) {
+            if (item.attr("media-type").startsWith("image/")
+                    && (item.attr("id").toLowerCase().contains("cover")
+                            || item.attr("href").toLowerCase().contains("cover")))
+                return item;
+        }
+        return null;
+    }
+
+    /**
+     * Returns the trimmed text of the first matching metadata element.
+     *
+     * @param opf      The package document.
+     * @param selector The element selector, e.g. dc|title.
+     * @return The text, or null if the element is missing or blank.
+     */
+    private static String metadataText(Document opf, String selector) {
+        Element element = opf.selectFirst("metadata " + selector);
+        if (element == null)
+            return null;
+        String text = element.text().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * Parses an archive entry as XML.
+     *
+     * @param zipFile The open EPUB archive.
+     * @param name    The entry name.
+     * @return The parsed document, or null if the entry does not exist.
+     * @throws IOException If the entry cannot be read.
+     */
+    private static Document parseEntry(ZipFile zipFile, String name) throws IOException {
+        ZipEntry entry = zipFile.getEntry(name);
+        if (entry == null)
+            return null;
+        try (RequestTrace.Span span = RequestTrace.span(RequestTrace.JSOUP, "parse " + name);
+                InputStream in = zipFile.getInputStream(entry)) {
+            return Jsoup.parse(in, StandardCharsets.UTF_8.name(), "", Parser.xmlParser());
+        }
+    }
+
+    /**
+     * Resolves a manifest href against the location of the OPF, giving the
+     * archive entry name it refers to.
+     *
+     * @param opfPath The entry name of the OPF.
+     * @param href    The (URL-encoded) href from the manifest.
+     * @return The archive entry name.
+     */
+    private static String resolve(String opfPath, String href) {
+        try {
+            String resolved = new URI(null, null, opfPath, null).resolve(new URI(href)).getPath();
+            return resolved.startsWith("/") ? resolved.substring(1) : resolved;
+        } catch (URISyntaxException e) {
+            int slash = opfPath.lastIndexOf('/');
+            return slash < 0 ? href : opfPath.substring(0, slash + 1) + href;
+        }
+    }
+}
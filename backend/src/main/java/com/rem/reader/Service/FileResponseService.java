@@ -0,0 +1,256 @@
+package com.rem.reader.Service;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+@Service
+public class FileResponseService {
+
+    // Tomcat's sendfile hook; the connector then writes the file to the socket itself
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final Cache<Path, MediaType> contentTypes = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .build();
+
+    // Public methods
+
+    /**
+     * Serves a file from disk with strong validators and byte-range support.
+     * The ETag is derived from the file's size and modification time, so it
+     * changes whenever the file does. Conditional requests that still match
+     * get an empty 304. A single satisfiable Range (honouring If-Range) gets a
+     * 206 with just that slice. When the connector supports sendfile, Tomcat
+     * writes the file to the socket itself and the bytes never enter the JVM.
+     * Otherwise the slice is copied to the servlet output stream; the stream
+     * is not a file or socket channel, so this goes through a buffer in user
+     * space.
+     * 
+     * @param path         The file to serve.
+     * @param request      The current request.
+     * @param response     The current response.
+     * @param cacheControl The Cache-Control policy for the file.
+     * @param downloadName The attachment file name, or null to serve inline.
+     * @return A ResponseEntity with the headers, a 304, a 416 or a 404, or null once the body has been written.
+     * @throws IOException If the file attributes cannot be read.
+     */
+    public ResponseEntity<?> serveFile(Path path, HttpServletRequest request, HttpServletResponse response,
+            CacheControl cacheControl, String downloadName) throws IOException {
+        if (!Files.isRegularFile(path) || !Files.isReadable(path))
+            return ResponseEntity.notFound().build();
+
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        String etag = "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModified) + "\"";
+        return serveFile(path, request, response, cacheControl, downloadName, etag, lastModified);
+    }
+
+    /**
+     * Serves a file from disk like serveFile, but with validators given by the
+     * caller. Used for a file that is a copy of content served from elsewhere
+     * too, so clients see the same ETag whichever copy answers.
+     * 
+     * @param path         The file to serve.
+     * @param request      The current request.
+     * @param response     The current response.
+     * @param cacheControl The Cache-Control policy for the file.
+     * @param downloadName The attachment file name, or null to serve inline.
+     * @param etag         The ETag of the content, quoted.
+     * @param lastModified The modification time of the content in milliseconds.
+     * @return A ResponseEntity with the headers, a 304, a 416 or a 404, or null once the body has been written.
+     * @throws IOException If the file attributes cannot be read.
+     */
+    public ResponseEntity<?> serveFile(Path path, HttpServletRequest request, HttpServletResponse response,
+            CacheControl cacheControl, String downloadName, String etag, long lastModified) throws IOException {
+        if (!Files.isRegularFile(path) || !Files.isReadable(path))
+            return ResponseEntity.notFound().build();
+
+        long size = Files.size(path);
+
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(etag)
+                    .lastModified(lastModified)
+                    .cacheControl(cacheControl)
+                    .build();
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(getContentType(path));
+        // checkNotModified has already written the validators to the response for GET and HEAD
+        if (!response.containsHeader(HttpHeaders.ETAG))
+            headers.setETag(etag);
+        if (!response.containsHeader(HttpHeaders.LAST_MODIFIED))
+            headers.setLastModified(lastModified);
+        headers.setCacheControl(cacheControl);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (downloadName != null)
+            headers.setContentDisposition(ContentDisposition.attachment().filename(downloadName).build());
+
+        long start = 0;
+        long end = size - 1;
+        HttpStatus status = HttpStatus.OK;
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && size > 0 && rangeStillValid(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Multiple ranges are rare for files; ignoring them and sending the whole file is allowed
+            if (ranges.size() == 1) {
+                HttpRange range = ranges.get(0);
+                try {
+                    start = range.getRangeStart(size);
+                    end = range.getRangeEnd(size);
+                } catch (IllegalArgumentException e) {
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+                }
+                if (start >= size) {
+                    headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                    return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+                }
+                headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+                status = HttpStatus.PARTIAL_CONTENT;
+            }
+        }
+
+        long length = end - start + 1;
+        headers.setContentLength(length);
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && length > 0) {
+            request.setAttribute(SENDFILE_FILENAME, path.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+
+        long from = start;
+        return writeBody(response, status, headers, out -> {
+            try (RequestTrace.Span span = RequestTrace.span(RequestTrace.FILE, "send " + path.getFileName())) {
+                transfer(path, from, length, Channels.newChannel(out));
+            }
+        });
+    }
+
+    /**
+     * Writes a status, headers and a streamed body straight to the servlet
+     * response. Controllers here return ResponseEntity&lt;?&gt;, which Spring
+     * cannot stream, so binary bodies are written here instead; the returned
+     * null tells Spring the response is already complete.
+     * 
+     * @param response The current response.
+     * @param status   The response status.
+     * @param headers  The response headers.
+     * @param body     Writes the body to the response stream.
+     * @return null, since the response has been written.
+     * @throws IOException If the body cannot be written.
+     */
+    public ResponseEntity<?> writeBody(HttpServletResponse response, HttpStatus status, HttpHeaders headers,
+            StreamingResponseBody body) throws IOException {
+        response.setStatus(status.value());
+        headers.forEach((name, values) -> {
+            if (!response.containsHeader(name))
+                values.forEach(value -> response.addHeader(name, value));
+        });
+        body.writeTo(response.getOutputStream());
+        response.flushBuffer();
+        return null;
+    }
+
+    /**
+     * Returns the content type of a file, probing it only the first time.
+     * 
+     * @param path The file.
+     * @return The content type, application/octet-stream if it cannot be determined.
+     */
+    public MediaType getContentType(Path path) {
+        return contentTypes.get(path, key -> {
+            try {
+                String probed = Files.probeContentType(key);
+                if (probed != null)
+                    return MediaType.parseMediaType(probed);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return MediaTypeFactory.getMediaType(key.getFileName().toString())
+                    .orElse(MediaType.APPLICATION_OCTET_STREAM);
+        });
+    }
+
+    // Private methods
+
+    /**
+     * Checks an If-Range precondition. A Range only applies if If-Range is absent
+     * or still matches the current ETag or modification time.
+     * 
+     * @param request      The current request.
+     * @param etag         The file's current ETag.
+     * @param lastModified The file's modification time in milliseconds.
+     * @return true if the Range header should be honoured, otherwise false.
+     */
+    private boolean rangeStillValid(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null)
+            return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+            return ifRange.equals(etag);
+        long since = request.getDateHeader(HttpHeaders.IF_RANGE);
+        return since != -1 && lastModified / 1000 == since / 1000;
+    }
+
+    /**
+     * Writes a slice of a file to a channel with FileChannel.transferTo. For a
+     * channel wrapping an output stream this is an ordinary buffered copy.
+     * 
+     * @param path   The file.
+     * @param start  The first byte to write.
+     * @param length The number of bytes to write.
+     * @param target The channel to write to.
+     * @throws IOException If the file cannot be read or the client goes away.
+     */
+    private static void transfer(Path path, long start, long length, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long position = start;
+            long remaining = length;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, target);
+                if (sent <= 0)
+                    break;
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+}
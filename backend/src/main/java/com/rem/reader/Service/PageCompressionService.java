@@ -0,0 +1,284 @@
+package com.rem.reader.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rem.reader.Models.BookPageCache;
+import com.rem.reader.Models.IngestionState;
+import com.rem.reader.Repo.BookPageCacheRepo;
+import com.rem.reader.Repo.BookPageDictionaryRepo;
+import com.rem.reader.Repo.BookRepo;
+
+import jakarta.annotation.PostConstruct;
+
+@Service
+public class PageCompressionService {
+
+    private static final Logger log = LoggerFactory.getLogger(PageCompressionService.class);
+
+    @Autowired
+    BookPageCacheRepo bookPageCacheRepo;
+
+    @Autowired
+    BookPageDictionaryRepo bookPageDictionaryRepo;
+
+    @Autowired
+    BookRepo bookRepo;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    // Lazy, as the ingestion service depends on this one
+    @Autowired
+    @Lazy
+    BookIngestionService bookIngestionService;
+
+    @Autowired
+    @Qualifier("maintenanceExecutor")
+    ThreadPoolTaskExecutor maintenanceExecutor;
+
+    @Value("${reader.page-compression.migration-chunk-pages:200}")
+    private int migrationChunkPages;
+
+    @Value("${reader.page-compression.vacuum-after-migration:true}")
+    private boolean vacuumAfterMigration;
+
+    // Deflate can only reference the last 32 KB of a preset dictionary
+    private static final int MAX_DICTIONARY_BYTES = 32 * 1024;
+    private static final int DICTIONARY_SAMPLE_PAGES = 16;
+
+    // Set when startup dropped a column, so the migration reclaims its space
+    private volatile boolean vacuumPending;
+
+    private final Cache<UUID, byte[]> dictionaries = Caffeine.newBuilder()
+            .maximumSize(256)
+            .build();
+
+    // Public methods
+
+    /**
+     * Brings the page tables of databases created by earlier versions up to
+     * date. The response_gzip column, which held a second gzipped copy of
+     * every page, is dropped. The dictionary of each book is made unique; a
+     * book that had more than one may have pages compressed with either, so
+     * it is queued to be paginated again. The queued books are picked up once
+     * the application is ready. Runs before requests and ingestion start, as
+     * dropping a column rewrites the whole table.
+     */
+    @PostConstruct
+    public void init() {
+        if (bookPageCacheRepo.dropResponseGzipColumn()) {
+            log.info("Dropped the response_gzip column of book_page_cache");
+            vacuumPending = true;
+        }
+        for (UUID bookUuid : bookPageCacheRepo.makeDictionariesUnique()) {
+            log.warn("Book {} had more than one compression dictionary, queued for ingestion", bookUuid);
+            bookRepo.updateIngestionStateByUuid(bookUuid, IngestionState.QUEUED);
+        }
+    }
+
+    /**
+     * Builds and stores the compression dictionary of a book from a sample of
+     * its first pages. Book pages share most of their markup, so priming
+     * deflate with it shrinks short pages considerably. Any dictionary the
+     * book already has is replaced.
+     * 
+     * @param bookUuid The UUID of the book.
+     * @param samples  The first pages of the book.
+     * @return The dictionary bytes.
+     */
+    public byte[] createDictionary(UUID bookUuid, List<BookPageCache> samples) {
+        int perPage = MAX_DICTIONARY_BYTES / Math.max(1, Math.min(samples.size(), DICTIONARY_SAMPLE_PAGES));
+        ByteArrayOutputStream sample = new ByteArrayOutputStream(MAX_DICTIONARY_BYTES);
+        for (int i = 0; i < samples.size() && i < DICTIONARY_SAMPLE_PAGES; i++) {
+            byte[] bytes = samples.get(i).getContent().getBytes(StandardCharsets.UTF_8);
+            sample.write(bytes, 0, Math.min(bytes.length, perPage));
+        }
+        byte[] dictionary = sample.toByteArray();
+
+        bookPageCacheRepo.saveDictionary(bookUuid, dictionary);
+        dictionaries.put(bookUuid, dictionary);
+        return dictionary;
+    }
+
+    /**
+     * Compresses a page's content in place, replacing it with the deflated
+     * bytes and their uncompressed length.
+     * 
+     * @param page       The page to compress.
+     * @param dictionary The dictionary of the page's book.
+     */
+    public void compress(BookPageCache page, byte[] dictionary) {
+        byte[] input = page.getContent().getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            if (dictionary.length > 0)
+                deflater.setDictionary(dictionary);
+            deflater.setInput(input);
+            deflater.finish();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, input.length / 3));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                int written = deflater.deflate(buffer);
+                out.write(buffer, 0, written);
+            }
+            page.setCompressedContent(out.toByteArray());
+            page.setContentLength(input.length);
+            page.setLegacyContent(null);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Decompresses page content stored by compress. A page that needs its
+     * book's dictionary when none is stored (e.g. the book is being
+     * re-ingested and its dictionary was just dropped) is reported as corrupt.
+     * 
+     * @param bookUuid   The UUID of the page's book.
+     * @param compressed The deflated bytes.
+     * @param length     The uncompressed length in bytes.
+     * @return The page content.
+     */
+    public String decompress(UUID bookUuid, byte[] compressed, Integer length) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] output = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(output, read, length - read);
+                if (n == 0 && inflater.needsDictionary()) {
+                    byte[] dictionary = getDictionary(bookUuid);
+                    if (dictionary == null)
+                        throw new IllegalStateException(
+                                "Corrupt page content for book " + bookUuid + ": its compression dictionary is missing");
+                    inflater.setDictionary(dictionary);
+                } else if (n == 0 && inflater.needsInput()) {
+                    break;
+                }
+                read += n;
+            }
+            return new String(output, 0, read, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt page content for book " + bookUuid, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Drops the stored dictionary of a book whose pages are deleted.
+     * 
+     * @param bookUuid The UUID of the book.
+     */
+    public void invalidateBook(UUID bookUuid) {
+        bookPageDictionaryRepo.deleteByBookUuid(bookUuid);
+        dictionaries.invalidate(bookUuid);
+    }
+
+    /**
+     * Reports how much space page content takes on disk compared with plain text.
+     * 
+     * @return A map of page counts, byte totals and the compression ratio.
+     */
+    public Map<String, Object> getStorageStats() {
+        Map<String, Object> sizes = bookPageCacheRepo.sumContentSizes();
+        long uncompressed = ((Number) sizes.get("uncompressedBytes")).longValue();
+        long compressed = ((Number) sizes.get("compressedBytes")).longValue();
+
+        Map<String, Object> stats = new LinkedHashMap<>(sizes);
+        stats.put("compressionRatio", compressed > 0 ? (double) uncompressed / compressed : 0.0);
+        return stats;
+    }
+
+    /**
+     * Compresses pages stored as plain text by earlier versions. Runs once in
+     * the background after startup and is a no-op when nothing is left. A
+     * book is migrated only while no ingestion of it is in flight; books with
+     * one are skipped, since the ingestion replaces their pages anyway. The
+     * database is vacuumed afterwards, or if startup dropped a column.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyPages() {
+        maintenanceExecutor.execute(() -> {
+            try {
+                List<UUID> bookIds = bookPageCacheRepo.findBookIdsWithLegacyContent();
+                if (bookIds.isEmpty() && !vacuumPending)
+                    return;
+
+                AtomicInteger migrated = new AtomicInteger();
+                for (UUID bookUuid : bookIds) {
+                    if (!bookIngestionService.runExclusively(bookUuid, () -> migrated.addAndGet(migrateBook(bookUuid))))
+                        log.info("Skipped compressing legacy pages of book {}, it is being ingested", bookUuid);
+                }
+
+                if (vacuumAfterMigration) {
+                    jdbcTemplate.execute("VACUUM");
+                    vacuumPending = false;
+                }
+
+                log.info("Compressed {} legacy pages, storage now {}", migrated.get(), getStorageStats());
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+    }
+
+    // Private methods
+
+    /**
+     * Compresses all plain text pages of one book, chunk by chunk.
+     * 
+     * @param bookUuid The UUID of the book.
+     * @return The number of pages compressed.
+     */
+    private int migrateBook(UUID bookUuid) {
+        int migrated = 0;
+        byte[] dictionary = bookPageCacheRepo.findDictionary(bookUuid);
+        List<BookPageCache> chunk;
+        while (!(chunk = bookPageCacheRepo.findLegacyPages(bookUuid, migrationChunkPages)).isEmpty()) {
+            if (dictionary == null)
+                dictionary = createDictionary(bookUuid, chunk);
+            for (BookPageCache page : chunk)
+                compress(page, dictionary);
+            bookPageCacheRepo.updateCompressedContent(chunk);
+            migrated += chunk.size();
+        }
+        return migrated;
+    }
+
+    /**
+     * Looks up the dictionary of a book, caching it in memory.
+     * Missing dictionaries are not cached, so one stored later is picked up.
+     * 
+     * @param bookUuid The UUID of the book.
+     * @return The dictionary bytes, or null if the book has none.
+     */
+    private byte[] getDictionary(UUID bookUuid) {
+        return dictionaries.get(bookUuid, bookPageCacheRepo::findDictionary);
+    }
+}
@@ -0,0 +1,187 @@
+package com.rem.reader.Service;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+@Service
+public class PagePrefetchService {
+
+    @Autowired
+    BookPageCacheService bookPageCacheService;
+
+    @Autowired
+    @Qualifier("prefetchExecutor")
+    ThreadPoolTaskExecutor prefetchExecutor;
+
+    @Value("${reader.prefetch.enabled:true}")
+    private boolean enabled;
+
+    @Value("${reader.prefetch.min-pages:1}")
+    private int minPages;
+
+    @Value("${reader.prefetch.max-pages:8}")
+    private int maxPages;
+
+    @Value("${reader.prefetch.lookahead-millis:60000}")
+    private long lookaheadMillis;
+
+    @Value("${reader.prefetch.include-previous:true}")
+    private boolean includePrevious;
+
+    @Value("${reader.prefetch.max-pages-per-second:50}")
+    private int maxPagesPerSecond;
+
+    // Reading state per (user, book); idle readers expire on their own
+    private final Cache<ReaderKey, ReaderState> readers = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    private final Object rateLock = new Object();
+    private long rateWindowStart = 0;
+    private int rateWindowPages = 0;
+
+    private record ReaderKey(UUID userUuid, UUID bookUuid) {}
+
+    /**
+     * Paging rhythm of one reader in one book and their pending read-ahead.
+     */
+    private static class ReaderState {
+        int lastPage = -1;
+        long lastServedAt = 0;
+        double avgIntervalMillis = 0;
+        Future<?> pending;
+        volatile int generation = 0;
+    }
+
+    // Public methods
+
+    /**
+     * Records that a page was served and schedules read-ahead of the pages the
+     * reader is likely to open next. The window covers roughly lookahead-millis
+     * of reading at this reader's recent pace, so fast readers get more pages.
+     * Any read-ahead still pending for the same reader is cancelled.
+     * 
+     * @param userUuid   The UUID of the user.
+     * @param bookUuid   The UUID of the book.
+     * @param pageNumber The page that was just served.
+     * @param totalPages The number of pages in the book.
+     */
+    public void onPageServed(UUID userUuid, UUID bookUuid, int pageNumber, int totalPages) {
+        if (!enabled)
+            return;
+
+        ReaderState state = readers.get(new ReaderKey(userUuid, bookUuid), key -> new ReaderState());
+        int window;
+        boolean backward;
+
+        synchronized (state) {
+            long now = System.currentTimeMillis();
+            backward = pageNumber < state.lastPage;
+            if (state.lastServedAt > 0 && Math.abs(pageNumber - state.lastPage) == 1) {
+                long interval = now - state.lastServedAt;
+                state.avgIntervalMillis = state.avgIntervalMillis == 0
+                        ? interval
+                        : state.avgIntervalMillis * 0.7 + interval * 0.3;
+            }
+            state.lastPage = pageNumber;
+            state.lastServedAt = now;
+            window = windowFor(state.avgIntervalMillis);
+
+            // Drop queued work outright and tell running work to stop at its next page
+            if (state.pending != null)
+                state.pending.cancel(false);
+            int generation = ++state.generation;
+            state.pending = prefetchExecutor.submit(
+                    () -> prefetch(state, generation, bookUuid, pageNumber, totalPages, window, backward));
+        }
+    }
+
+    // Private methods
+
+    /**
+     * Computes how many pages to read ahead for a given average page interval.
+     * 
+     * @param avgIntervalMillis The reader's average time per page, or 0 if unknown.
+     * @return The number of pages to read ahead.
+     */
+    private int windowFor(double avgIntervalMillis) {
+        if (avgIntervalMillis <= 0)
+            return minPages;
+        long pages = Math.round(lookaheadMillis / avgIntervalMillis);
+        return (int) Math.max(minPages, Math.min(maxPages, pages));
+    }
+
+    /**
+     * Loads the pages after (or before, when paging backwards) the served page
+     * into the page cache. Stops early when superseded by a newer page turn or
+     * when rate-limited.
+     * 
+     * @param state      The reader this read-ahead belongs to.
+     * @param generation The reader generation this read-ahead was scheduled for.
+     * @param bookUuid   The UUID of the book.
+     * @param pageNumber The page that was just served.
+     * @param totalPages The number of pages in the book.
+     * @param window     The number of pages to read ahead.
+     * @param backward   Whether the reader is paging backwards.
+     */
+    private void prefetch(ReaderState state, int generation, UUID bookUuid, int pageNumber, int totalPages,
+            int window, boolean backward) {
+        int step = backward ? -1 : 1;
+        for (int i = 1; i <= window; i++) {
+            if (state.generation != generation)
+                return;
+            if (!prefetchOne(bookUuid, pageNumber + step * i, totalPages))
+                return;
+        }
+        if (includePrevious && state.generation == generation)
+            prefetchOne(bookUuid, pageNumber - step, totalPages);
+    }
+
+    /**
+     * Loads a single page into the cache if it is in range and not cached yet.
+     * 
+     * @param bookUuid   The UUID of the book.
+     * @param pageNumber The page to load.
+     * @param totalPages The number of pages in the book.
+     * @return false if the read-ahead should stop, otherwise true.
+     */
+    private boolean prefetchOne(UUID bookUuid, int pageNumber, int totalPages) {
+        if (pageNumber < 0 || pageNumber >= totalPages)
+            return true;
+        if (bookPageCacheService.isCached(bookUuid, pageNumber))
+            return true;
+        if (!tryAcquirePage())
+            return false;
+        bookPageCacheService.prefetchPage(bookUuid, pageNumber);
+        return true;
+    }
+
+    /**
+     * Fixed one-second window rate limiter shared by all read-ahead work.
+     * 
+     * @return true if another page may be loaded now, otherwise false.
+     */
+    private boolean tryAcquirePage() {
+        synchronized (rateLock) {
+            long now = System.currentTimeMillis();
+            if (now - rateWindowStart >= 1000) {
+                rateWindowStart = now;
+                rateWindowPages = 0;
+            }
+            if (rateWindowPages >= maxPagesPerSecond)
+                return false;
+            rateWindowPages++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.rem.reader.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.rem.reader.Models.BookPageCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import jakarta.annotation.PostConstruct;
+
+@Service
+public class PageResponseService implements MeterBinder {
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${reader.page-response.cache-max-bytes:16777216}")
+    private long maxBytes;
+
+    // Gzipped single-page response bodies, kept in memory only so pages are stored once on disk
+    private Cache<PageKey, byte[]> responses;
+
+    private record PageKey(UUID bookUuid, int pageNumber) {}
+
+    @PostConstruct
+    void init() {
+        responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((PageKey key, byte[] body) -> body.length)
+                .recordStats()
+                .build();
+    }
+
+    // Public methods
+
+    /**
+     * Returns the gzipped response body of a page, encoding it on first use.
+     * Bodies are cached apart from the page entities, which are shared with
+     * the page cache and never modified here.
+     * 
+     * @param page       The page to serve.
+     * @param totalPages The number of pages in the book.
+     * @return The gzipped JSON response body.
+     */
+    public byte[] getEncodedResponse(BookPageCache page, int totalPages) {
+        return responses.get(new PageKey(page.getBookId(), page.getPageNumber()),
+                key -> encode(page, totalPages));
+    }
+
+    /**
+     * Drops every cached response body of a book.
+     * 
+     * @param bookUuid The UUID of the book.
+     */
+    public void invalidateBook(UUID bookUuid) {
+        responses.asMap().keySet().removeIf(key -> key.bookUuid().equals(bookUuid));
+    }
+
+    /**
+     * Publishes the response body cache's metrics. Called by the meter
+     * registry once it is ready.
+     * 
+     * @param registry The registry to bind to.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, responses, "page-responses");
+    }
+
+    /**
+     * Checks whether an Accept-Encoding header allows a gzipped response.
+     * gzip (or x-gzip) is accepted unless its quality value is 0; when it is
+     * not listed, a wildcard decides. A coding refused with q=0 counts as
+     * refused even if a wildcard allows everything else.
+     * 
+     * @param acceptEncoding The request's Accept-Encoding header, may be null.
+     * @return true if the client accepts gzip, otherwise false.
+     */
+    public boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+
+        Double gzip = null;
+        Double wildcard = null;
+        for (String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = quality(parts);
+            if (coding.equals("gzip") || coding.equals("x-gzip"))
+                gzip = gzip == null ? quality : Math.max(gzip, quality);
+            else if (coding.equals("*"))
+                wildcard = quality;
+        }
+        if (gzip != null)
+            return gzip > 0;
+        return wildcard != null && wildcard > 0;
+    }
+
+    // Private methods
+
+    /**
+     * Reads the quality value of one Accept-Encoding element.
+     * 
+     * @param parts The element split on ';', the coding first.
+     * @return The q parameter, 1 if absent, 0 if malformed.
+     */
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.length() > 2 && (parameter.charAt(0) == 'q' || parameter.charAt(0) == 'Q')
+                    && parameter.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * Serializes a page the way the reader endpoint does and gzips the result.
+     * Package-private for the benchmarks.
+     * 
+     * @param page       The page to encode.
+     * @param totalPages The number of pages in the book.
+     * @return The gzipped JSON response body.
+     */
+    byte[] encode(BookPageCache page, int totalPages) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("pages", List.of(page));
+        body.put("totalPages", totalPages);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            objectMapper.writeValue(gzip, body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
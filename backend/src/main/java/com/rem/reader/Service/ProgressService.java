@@ -1,14 +1,31 @@
 package com.rem.reader.Service;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.rem.reader.Models.Progress;
 import com.rem.reader.Repo.ProgressRepo;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.servlet.http.HttpSession;
 
 @Service
@@ -17,6 +34,47 @@ public class ProgressService {
     @Autowired
     ProgressRepo progressRepo;
 
+    @Autowired
+    TaskScheduler taskScheduler;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Value("${reader.progress.flush-threshold:256}")
+    private int flushThreshold;
+
+    // Latest page per (account, book) not yet written to the database
+    private final ConcurrentHashMap<ProgressKey, Progress> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final Object flushLock = new Object();
+
+    private Counter updateCounter;
+    private Timer flushTimer;
+    private DistributionSummary flushRows;
+
+    private record ProgressKey(UUID accountUuid, UUID bookUuid) {}
+
+    /**
+     * Registers the progress meters: page turns recorded, batch flushes and
+     * the number of page turns waiting to be flushed.
+     */
+    @PostConstruct
+    public void init() {
+        updateCounter = Counter.builder("reader.progress.updates")
+                .description("Page turns recorded")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("reader.progress.flush")
+                .description("Time to write a batch of buffered page turns")
+                .register(meterRegistry);
+        flushRows = DistributionSummary.builder("reader.progress.flush.rows")
+                .description("Page turns written per flush")
+                .register(meterRegistry);
+        Gauge.builder("reader.progress.pending", pending, ConcurrentHashMap::size)
+                .description("Page turns buffered and not yet written")
+                .register(meterRegistry);
+    }
+
     // Public methods
 
     /**
@@ -32,12 +90,109 @@ public class ProgressService {
             return ResponseEntity.status(401).body("Unauthorized");
         }
 
-        Progress progress = progressRepo.findByAccountUuidAndBookUuid(userUuid, bookUuid);
-        if (progress != null) {
-            progressRepo.delete(progress);
-            return ResponseEntity.ok("Progress removed successfully");
-        } else {
-            return ResponseEntity.notFound().build();
+        synchronized (flushLock) {
+            Progress buffered = pending.remove(new ProgressKey(userUuid, bookUuid));
+            Progress progress = progressRepo.findByAccountUuidAndBookUuid(userUuid, bookUuid);
+            if (progress != null) {
+                progressRepo.delete(progress);
+                return ResponseEntity.ok("Progress removed successfully");
+            } else if (buffered != null) {
+                return ResponseEntity.ok("Progress removed successfully");
+            } else {
+                return ResponseEntity.notFound().build();
+            }
+        }
+    }
+
+    /**
+     * Records the user's current page for a specific book. The write is buffered
+     * and coalesced with later page turns on the same book, then flushed in a
+     * batch on a timer or once the buffer reaches its size threshold.
+     * 
+     * @param userUuid    The UUID of the user.
+     * @param bookUuid    The UUID of the book.
+     * @param currentPage The current page number.
+     */
+    public void updateUserCurrentPage(UUID userUuid, UUID bookUuid, int currentPage) {
+        Progress progress = new Progress();
+        progress.setAccountUuid(userUuid);
+        progress.setBookUuid(bookUuid);
+        progress.setCurrentPageNumber(currentPage);
+        pending.put(new ProgressKey(userUuid, bookUuid), progress);
+        updateCounter.increment();
+
+        if (pending.size() >= flushThreshold && flushScheduled.compareAndSet(false, true))
+            taskScheduler.schedule(this::flush, Instant.now());
+    }
+
+    /**
+     * Returns the user's current page for a book, preferring a buffered page turn
+     * over the stored one.
+     * 
+     * @param userUuid The UUID of the user.
+     * @param bookUuid The UUID of the book.
+     * @param stored   The stored current page, or 0 if there is none.
+     * @return The current page number.
+     */
+    public int getCurrentPage(UUID userUuid, UUID bookUuid, int stored) {
+        if (userUuid == null)
+            return stored;
+        Progress buffered = pending.get(new ProgressKey(userUuid, bookUuid));
+        return buffered != null ? buffered.getCurrentPageNumber() : stored;
+    }
+
+    /**
+     * Discards buffered page turns for a book that is being deleted.
+     * 
+     * @param bookUuid The UUID of the book.
+     */
+    public void discardBook(UUID bookUuid) {
+        synchronized (flushLock) {
+            pending.keySet().removeIf(key -> key.bookUuid().equals(bookUuid));
+        }
+    }
+
+    /**
+     * Writes all buffered page turns in one batched upsert transaction. Each
+     * entry's last read time is set to the time of the flush.
+     */
+    @Scheduled(fixedDelayString = "${reader.progress.flush-interval-millis:5000}")
+    public void flush() {
+        flushScheduled.set(false);
+        synchronized (flushLock) {
+            if (pending.isEmpty())
+                return;
+
+            LocalDateTime now = LocalDateTime.now();
+            List<Progress> batch = new ArrayList<>(pending.size());
+            for (ProgressKey key : pending.keySet()) {
+                Progress progress = pending.remove(key);
+                if (progress == null)
+                    continue;
+                progress.setLastRead(now);
+                batch.add(progress);
+            }
+
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                progressRepo.upsertCurrentPages(batch);
+                flushRows.record(batch.size());
+            } catch (Exception e) {
+                e.printStackTrace();
+                // Put the batch back unless a newer page turn arrived meanwhile
+                for (Progress progress : batch)
+                    pending.putIfAbsent(new ProgressKey(progress.getAccountUuid(), progress.getBookUuid()), progress);
+            } finally {
+                sample.stop(flushTimer);
+            }
         }
     }
+
+    /**
+     * Flushes buffered page turns before the application shuts down.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
 }
@@ -0,0 +1,178 @@
+package com.rem.reader.Service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The spans recorded while one request is handled. A trace is bound to the
+ * request thread, so code anywhere below a controller can open a span without
+ * passing anything around; when no request is being traced, opening a span
+ * costs a ThreadLocal lookup and records nothing. Work handed to other
+ * threads (ingestion, prefetch, thumbnails) is not part of the trace.
+ */
+public final class RequestTrace {
+
+    public static final String SQL = "sql";
+    public static final String FILE = "file";
+    public static final String JSOUP = "jsoup";
+    public static final String RESPONSE = "response";
+
+    // A runaway request keeps its totals but not every span
+    private static final int MAX_SPANS = 256;
+
+    private static final ThreadLocal<RequestTrace> CURRENT = new ThreadLocal<>();
+
+    private static final Span NO_SPAN = () -> {};
+
+    /**
+     * An open span; closing it records its duration.
+     */
+    public interface Span extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    /**
+     * A finished span, with its start relative to the start of the request.
+     */
+    public record SpanRecord(String category, String name, long offsetNanos, long durationNanos) {}
+
+    private final String method;
+    private final String path;
+    private final Instant startedAt = Instant.now();
+    private final long startNanos = System.nanoTime();
+    private final List<SpanRecord> spans = new ArrayList<>();
+    private int droppedSpans;
+    private int sqlStatements;
+    private long responseStartNanos = -1;
+    private long durationNanos = -1;
+    private int status;
+
+    private RequestTrace(String method, String path) {
+        this.method = method;
+        this.path = path;
+    }
+
+    // Public methods
+
+    /**
+     * Starts tracing the current request on this thread.
+     *
+     * @param method The HTTP method.
+     * @param path   The request path.
+     * @return The new trace.
+     */
+    public static RequestTrace begin(String method, String path) {
+        RequestTrace trace = new RequestTrace(method, path);
+        CURRENT.set(trace);
+        return trace;
+    }
+
+    /**
+     * Finishes the trace of the current request and unbinds it from the
+     * thread. If the response body was written through a message converter,
+     * the time from then on is recorded as a response span.
+     *
+     * @param status The response status.
+     * @return The finished trace, or null if the request was not traced.
+     */
+    public static RequestTrace end(int status) {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null)
+            return null;
+        CURRENT.remove();
+
+        long now = System.nanoTime();
+        if (trace.responseStartNanos >= 0)
+            trace.add(RESPONSE, "write body", trace.responseStartNanos, now - trace.responseStartNanos);
+        trace.durationNanos = now - trace.startNanos;
+        trace.status = status;
+        return trace;
+    }
+
+    /**
+     * Opens a span in the trace of the current request.
+     *
+     * @param category The kind of work, e.g. {@link #SQL} or {@link #FILE}.
+     * @param name     What is being done, e.g. the SQL text or the file name.
+     * @return The span to close when the work is done.
+     */
+    public static Span span(String category, String name) {
+        RequestTrace trace = CURRENT.get();
+        if (trace == null)
+            return NO_SPAN;
+        long start = System.nanoTime();
+        return () -> trace.add(category, name, start, System.nanoTime() - start);
+    }
+
+    /**
+     * Records a span that was timed by the caller, for work that does not fit
+     * in one block, such as a query whose rows are stepped through later.
+     *
+     * @param category      The kind of work.
+     * @param name          What was done.
+     * @param startNanos    When the work started, from System.nanoTime.
+     * @param durationNanos How long it took.
+     */
+    public static void record(String category, String name, long startNanos, long durationNanos) {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null)
+            trace.add(category, name, startNanos, durationNanos);
+    }
+
+    /**
+     * Whether the current thread is handling a traced request.
+     *
+     * @return true if spans opened now are recorded.
+     */
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * Marks the point where the response body starts being serialized.
+     */
+    public static void markResponseStart() {
+        RequestTrace trace = CURRENT.get();
+        if (trace != null && trace.responseStartNanos < 0)
+            trace.responseStartNanos = System.nanoTime();
+    }
+
+    public String getMethod() { return method; }
+
+    public String getPath() { return path; }
+
+    public Instant getStartedAt() { return startedAt; }
+
+    public long getDurationNanos() { return durationNanos; }
+
+    public int getStatus() { return status; }
+
+    public int getSqlStatements() { return sqlStatements; }
+
+    public int getDroppedSpans() { return droppedSpans; }
+
+    public List<SpanRecord> getSpans() { return Collections.unmodifiableList(spans); }
+
+    // Private methods
+
+    /**
+     * Records a finished span. SQL statements are counted even once the span
+     * list is full.
+     *
+     * @param category      The kind of work.
+     * @param name          What was done.
+     * @param startNanos    When the span started, from System.nanoTime.
+     * @param durationNanos How long it took.
+     */
+    private void add(String category, String name, long startNanos, long durationNanos) {
+        if (SQL.equals(category))
+            sqlStatements++;
+        if (spans.size() < MAX_SPANS)
+            spans.add(new SpanRecord(category, name, startNanos - this.startNanos, durationNanos));
+        else
+            droppedSpans++;
+    }
+}
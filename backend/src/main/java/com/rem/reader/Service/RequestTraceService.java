@@ -0,0 +1,160 @@
+package com.rem.reader.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import com.rem.reader.DTO.RequestSpanDTO;
+import com.rem.reader.DTO.SlowRequestDTO;
+import com.rem.reader.Repo.AccountRepo;
+import com.rem.reader.Service.RequestTrace.SpanRecord;
+
+import jakarta.servlet.http.HttpSession;
+
+@Service
+public class RequestTraceService {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTraceService.class);
+
+    @Autowired
+    AccountRepo accountRepo;
+
+    @Value("${reader.tracing.slow-threshold-millis:500}")
+    private long slowThresholdMillis;
+
+    @Value("${reader.tracing.max-slow-requests:100}")
+    private int maxSlowRequests;
+
+    // Spans listed per slow request in the log; the admin endpoint has all of them
+    private static final int LOGGED_SPANS = 20;
+    private static final int LOGGED_NAME_LENGTH = 120;
+
+    // Most recent slow requests first
+    private final Deque<SlowRequestDTO> slowRequests = new ArrayDeque<>();
+
+    // Public methods
+
+    /**
+     * Takes a finished request trace. A request over the slow threshold is
+     * logged with the time spent per span category and its slowest spans,
+     * and kept for the admin endpoint; faster requests are dropped.
+     *
+     * @param trace The finished trace.
+     */
+    public void record(RequestTrace trace) {
+        if (trace.getDurationNanos() < slowThresholdMillis * 1_000_000)
+            return;
+
+        SlowRequestDTO slowRequest = toDTO(trace);
+        synchronized (slowRequests) {
+            slowRequests.addFirst(slowRequest);
+            while (slowRequests.size() > maxSlowRequests)
+                slowRequests.removeLast();
+        }
+        log.warn(describe(slowRequest));
+    }
+
+    /**
+     * Lists the most recent slow requests, newest first.
+     *
+     * @param session The HTTP session of an admin.
+     * @return A ResponseEntity containing the slow requests, or 401 for anyone but an admin.
+     */
+    public ResponseEntity<?> getSlowRequests(HttpSession session) {
+        UUID uuid = (UUID) session.getAttribute("userUuid");
+        if (uuid == null || !accountRepo.isAdminByUuid(uuid))
+            return ResponseEntity.status(401).body("Unauthorized");
+
+        synchronized (slowRequests) {
+            return ResponseEntity.ok(new ArrayList<>(slowRequests));
+        }
+    }
+
+    // Private methods
+
+    /**
+     * Converts a trace into its reported form, summing span time per
+     * category. Whatever the spans do not cover (controller and service code,
+     * session lookup, filters) is reported as other.
+     *
+     * @param trace The finished trace.
+     * @return The slow request.
+     */
+    private static SlowRequestDTO toDTO(RequestTrace trace) {
+        Map<String, Double> breakdown = new LinkedHashMap<>();
+        List<RequestSpanDTO> spans = new ArrayList<>();
+        long covered = 0;
+        for (SpanRecord span : trace.getSpans()) {
+            breakdown.merge(span.category(), millis(span.durationNanos()), Double::sum);
+            spans.add(new RequestSpanDTO(span.category(), span.name(), millis(span.offsetNanos()),
+                    millis(span.durationNanos())));
+            covered += span.durationNanos();
+        }
+        breakdown.put("other", millis(Math.max(0, trace.getDurationNanos() - covered)));
+
+        return new SlowRequestDTO(trace.getStartedAt(), trace.getMethod(), trace.getPath(), trace.getStatus(),
+                millis(trace.getDurationNanos()), trace.getSqlStatements(), breakdown, spans,
+                trace.getDroppedSpans());
+    }
+
+    /**
+     * Formats a slow request for the log: a summary line followed by its
+     * slowest spans in the order they ran.
+     *
+     * @param slowRequest The slow request.
+     * @return The log text.
+     */
+    private static String describe(SlowRequestDTO slowRequest) {
+        StringBuilder text = new StringBuilder()
+                .append("Slow request ").append(slowRequest.getMethod()).append(' ').append(slowRequest.getPath())
+                .append(" -> ").append(slowRequest.getStatus())
+                .append(String.format(" in %.1f ms, %d SQL statements:", slowRequest.getDurationMillis(),
+                        slowRequest.getSqlStatements()));
+        slowRequest.getBreakdownMillis()
+                .forEach((category, millis) -> text.append(String.format(" %s %.1f ms", category, millis)));
+
+        slowRequest.getSpans().stream()
+                .sorted(Comparator.comparingDouble(RequestSpanDTO::getDurationMillis).reversed())
+                .limit(LOGGED_SPANS)
+                .sorted(Comparator.comparingDouble(RequestSpanDTO::getOffsetMillis))
+                .forEach(span -> text.append(String.format("%n  +%.1f ms %s %.1f ms %s", span.getOffsetMillis(),
+                        span.getCategory(), span.getDurationMillis(), abbreviate(span.getName()))));
+        if (slowRequest.getSpans().size() > LOGGED_SPANS || slowRequest.getDroppedSpans() > 0)
+            text.append(String.format("%n  (%d spans, %d not recorded)", slowRequest.getSpans().size(),
+                    slowRequest.getDroppedSpans()));
+        return text.toString();
+    }
+
+    /**
+     * Shortens a span name, usually SQL, to one line for the log.
+     *
+     * @param name The span name.
+     * @return The name with whitespace collapsed, cut at LOGGED_NAME_LENGTH characters.
+     */
+    private static String abbreviate(String name) {
+        String line = name.replaceAll("\\s+", " ").trim();
+        return line.length() > LOGGED_NAME_LENGTH ? line.substring(0, LOGGED_NAME_LENGTH) + "..." : line;
+    }
+
+    /**
+     * Converts nanoseconds to milliseconds, rounded to microseconds.
+     *
+     * @param nanos The duration in nanoseconds.
+     * @return The duration in milliseconds.
+     */
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,138 @@
+package com.rem.reader.Repo;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.rem.reader.DTO.BookListItemDTO;
+import com.rem.reader.DTO.LibraryCursorDTO;
+import com.rem.reader.DTO.LibraryFilter;
+import com.rem.reader.DTO.LibraryPageDTO;
+import com.rem.reader.DTO.LibrarySort;
+import com.rem.reader.Models.Book;
+import com.rem.reader.Models.IngestionState;
+import com.rem.reader.Models.Progress;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:./target/book-repo-test.db")
+class BookRepoCustomImplTests {
+
+    @Autowired
+    BookRepo bookRepo;
+
+    @Autowired
+    ProgressRepo progressRepo;
+
+    private final UUID userUuid = UUID.randomUUID();
+
+    private final List<Book> books = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        progressRepo.deleteAll();
+        bookRepo.deleteAll();
+        books.clear();
+
+        String[] titles = { "Beta", null, "Alpha", "Gamma", null, "Alpha", "Delta", null };
+        String[] authors = { null, "Kim", "Lee", null, "Kim", null, "Abe", "Lee" };
+        for (int i = 0; i < titles.length; i++) {
+            Book book = new Book();
+            book.setUuid(UUID.randomUUID());
+            book.setTitle(titles[i]);
+            book.setAuthor(authors[i]);
+            book.setPages(100);
+            book.setFilePath("data/books/none.epub");
+            book.setIngestionState(IngestionState.DONE);
+            books.add(bookRepo.save(book));
+        }
+    }
+
+    @Test
+    void pagesByTitleWithNullsFirstAscendingAndLastDescending() {
+        assertPagesInOrder(LibrarySort.TITLE, false, byColumn(Book::getTitle, false));
+        assertPagesInOrder(LibrarySort.TITLE, true, byColumn(Book::getTitle, true));
+    }
+
+    @Test
+    void pagesByAuthorWithNullsFirstAscendingAndLastDescending() {
+        assertPagesInOrder(LibrarySort.AUTHOR, false, byColumn(Book::getAuthor, false));
+        assertPagesInOrder(LibrarySort.AUTHOR, true, byColumn(Book::getAuthor, true));
+    }
+
+    @Test
+    void pagesByLastReadThenThroughTheUnreadBooks() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        saveProgress(userUuid, books.get(3), now.plusMinutes(1));
+        // Read at the same time; the progress id breaks the tie
+        saveProgress(userUuid, books.get(0), now.plusMinutes(3));
+        saveProgress(userUuid, books.get(6), now.plusMinutes(3));
+        // Opened but never read, so it counts as unread
+        saveProgress(userUuid, books.get(5), null);
+        // Read by someone else only
+        saveProgress(UUID.randomUUID(), books.get(1), now.plusMinutes(9));
+
+        List<UUID> unreadAscending = List.of(books.get(1), books.get(2), books.get(4), books.get(5), books.get(7))
+                .stream().map(Book::getUuid).toList();
+        List<UUID> unreadDescending = new ArrayList<>(unreadAscending);
+        Collections.reverse(unreadDescending);
+
+        List<UUID> ascending = new ArrayList<>(List.of(books.get(3).getUuid(), books.get(0).getUuid(), books.get(6).getUuid()));
+        ascending.addAll(unreadAscending);
+        List<UUID> descending = new ArrayList<>(List.of(books.get(6).getUuid(), books.get(0).getUuid(), books.get(3).getUuid()));
+        descending.addAll(unreadDescending);
+
+        assertPagesInOrder(LibrarySort.LAST_READ, false, ascending);
+        assertPagesInOrder(LibrarySort.LAST_READ, true, descending);
+    }
+
+    /**
+     * Walks the whole library with every page size up to one past its length
+     * and checks each walk returns every book once, in the expected order.
+     */
+    private void assertPagesInOrder(LibrarySort sort, boolean descending, List<UUID> expected) {
+        for (int limit = 1; limit <= expected.size() + 1; limit++) {
+            List<UUID> walked = new ArrayList<>();
+            LibraryCursorDTO after = null;
+            for (int pages = 0; pages <= expected.size(); pages++) {
+                LibraryPageDTO page = bookRepo.findLibraryPage(userUuid, sort, descending, LibraryFilter.ALL, after, limit);
+                page.getBooks().stream().map(BookListItemDTO::getUuid).forEach(walked::add);
+                after = page.getNextCursor();
+                if (after == null)
+                    break;
+            }
+            assertEquals(expected, walked, sort + (descending ? " desc" : " asc") + ", " + limit + " per page");
+        }
+    }
+
+    /**
+     * The order SQLite gives a nullable text column with the book id breaking
+     * ties: NULLs first ascending and last descending.
+     */
+    private List<UUID> byColumn(Function<Book, String> column, boolean descending) {
+        Comparator<Book> order = Comparator.comparing(column, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+                .thenComparingLong(Book::getId);
+        return books.stream()
+                .sorted(descending ? order.reversed() : order)
+                .map(Book::getUuid)
+                .toList();
+    }
+
+    private void saveProgress(UUID accountUuid, Book book, LocalDateTime lastRead) {
+        Progress progress = new Progress();
+        progress.setAccountUuid(accountUuid);
+        progress.setBookUuid(book.getUuid());
+        progress.setCurrentPageNumber(1);
+        progress.setLastRead(lastRead);
+        progressRepo.save(progress);
+    }
+}
@@ -0,0 +1,168 @@
+package com.rem.reader.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.rem.reader.Models.BookPageCache;
+
+class BookIngestionServiceTests {
+
+    private final BookIngestionService bookIngestionService = new BookIngestionService();
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        bookIngestionService.bookSearchService = new BookSearchService();
+    }
+
+    @Test
+    void paginatesBlocksInPlaceExactlyAsTheCloningPaginatorDid() throws IOException {
+        Path epub = writeEpub(chapter());
+        UUID bookUuid = UUID.randomUUID();
+
+        try (ZipFile zipFile = new ZipFile(epub.toFile())) {
+            ZipEntry chapter = zipFile.getEntry("OEBPS/chapter.xhtml");
+            List<String> expected = paginateByCloning(zipFile, chapter, bookUuid);
+            List<String> actual = bookIngestionService.paginateChapter(zipFile, chapter, bookUuid).stream()
+                    .map(BookPageCache::getContent)
+                    .toList();
+
+            // The fixture spans several pages, one of them a full-page image
+            assertTrue(expected.size() >= 3);
+            assertTrue(expected.stream().anyMatch(page -> page.startsWith("<p><img")));
+            assertEquals(expected, actual);
+        }
+    }
+
+    /**
+     * The chapter paginator as it was before blocks were serialized in place:
+     * every block is cloned, its images rewritten on the copy, and each page
+     * trimmed once it is complete.
+     */
+    private static List<String> paginateByCloning(ZipFile zipFile, ZipEntry chapter, UUID bookUuid)
+            throws IOException {
+        Document doc;
+        try (InputStream in = zipFile.getInputStream(chapter)) {
+            doc = Jsoup.parse(in, StandardCharsets.UTF_8.name(), "");
+        }
+        Elements blocks = doc.select("h1, h2, h3, p, blockquote");
+
+        List<String> pages = new ArrayList<>();
+        StringBuilder pageBuilder = new StringBuilder();
+        int blockCount = 0;
+
+        for (Element block : blocks) {
+            Element cloned = block.clone();
+
+            cloned.select("img").forEach(img -> {
+                String imageName = Path.of(img.attr("src")).getFileName().toString();
+                img.attr("src", "http://localhost:8080/api/book-reader/" + bookUuid + "/assets/" + imageName);
+            });
+
+            boolean isFullImage = cloned.tagName().equals("p")
+                    && cloned.childrenSize() == 1
+                    && cloned.select("img").size() == 1;
+
+            if (isFullImage) {
+                if (!pageBuilder.isEmpty()) {
+                    pages.add(pageBuilder.toString().trim());
+                    pageBuilder = new StringBuilder();
+                    blockCount = 0;
+                }
+                pages.add(cloned.outerHtml());
+                continue;
+            }
+
+            pageBuilder.append(cloned.outerHtml()).append("\n");
+            blockCount++;
+
+            if (blockCount >= 15) {
+                pages.add(pageBuilder.toString().trim());
+                pageBuilder = new StringBuilder();
+                blockCount = 0;
+            }
+        }
+
+        if (!pageBuilder.isEmpty())
+            pages.add(pageBuilder.toString().trim());
+        return pages;
+    }
+
+    /**
+     * A chapter mixing the markup whose serialization could differ in place:
+     * blocks inside whitespace-preserving elements, nested inline markup,
+     * nested blocks and a paragraph holding only an image.
+     */
+    private static String chapter() {
+        StringBuilder body = new StringBuilder();
+        body.append("<h1>Chapter <em>One</em></h1>\n");
+        for (int i = 0; i < 12; i++) {
+            body.append("<p>Paragraph ").append(i)
+                    .append(" with <em>nested <strong>inline <a href=\"#n").append(i)
+                    .append("\"><span>markup</span></a></strong></em> and <code>code</code>.</p>\n");
+        }
+        body.append("<pre>  kept   as is\n<p>  a block   inside pre\n  <b>bold</b>  </p>\n</pre>\n");
+        body.append("<textarea>  raw <p>  not a block </p>  </textarea>\n");
+        body.append("<p><img src=\"../images/figure-1.png\" alt=\"Figure\"/></p>\n");
+        body.append("<blockquote>\n  <p>Quoted <i>inline</i> text</p>\n  <blockquote><p>Nested quote</p></blockquote>\n</blockquote>\n");
+        body.append("<p>An <a href=\"x.html\"><img src=\"images/inline.png\"/></a> inline image and text.</p>\n");
+        for (int i = 0; i < 18; i++) {
+            body.append("<h2>Section ").append(i).append("</h2>\n<p>Text 📖 ").append(i).append("</p>\n");
+        }
+        return "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<html xmlns=\"http://www.w3.org/1999/xhtml\"><head><title>Fixture</title></head>\n"
+                + "<body>\n" + body + "</body></html>\n";
+    }
+
+    /**
+     * Writes a minimal EPUB holding the given chapter.
+     */
+    private Path writeEpub(String chapter) throws IOException {
+        Path epub = dir.resolve("fixture.epub");
+        try (OutputStream file = Files.newOutputStream(epub); ZipOutputStream zip = new ZipOutputStream(file)) {
+            addEntry(zip, "mimetype", "application/epub+zip");
+            addEntry(zip, "META-INF/container.xml",
+                    "<?xml version=\"1.0\"?>\n"
+                            + "<container version=\"1.0\" xmlns=\"urn:oasis:names:tc:opendocument:xmlns:container\">"
+                            + "<rootfiles><rootfile full-path=\"OEBPS/content.opf\" media-type=\"application/oebps-package+xml\"/>"
+                            + "</rootfiles></container>");
+            addEntry(zip, "OEBPS/content.opf",
+                    "<?xml version=\"1.0\"?>\n"
+                            + "<package xmlns=\"http://www.idpf.org/2007/opf\" version=\"3.0\">"
+                            + "<metadata xmlns:dc=\"http://purl.org/dc/elements/1.1/\"><dc:title>Fixture</dc:title></metadata>"
+                            + "<manifest><item id=\"c1\" href=\"chapter.xhtml\" media-type=\"application/xhtml+xml\"/></manifest>"
+                            + "<spine><itemref idref=\"c1\"/></spine></package>");
+            addEntry(zip, "OEBPS/chapter.xhtml", chapter);
+        }
+        return epub;
+    }
+
+    private static void addEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
@@ -0,0 +1,159 @@
+package com.rem.reader.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.rem.reader.Models.BookPageCache;
+import com.rem.reader.Repo.BookPageCacheRepo;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:sqlite:./target/book-page-cache-service-test.db",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "reader.page-cache.max-bytes=" + BookPageCacheServiceTests.MAX_BYTES
+})
+class BookPageCacheServiceTests {
+
+    static final long MAX_BYTES = 64 * 1024;
+
+    private static final String TITLE = "Chapter";
+
+    @Autowired
+    BookPageCacheService bookPageCacheService;
+
+    @Autowired
+    BookPageCacheRepo bookPageCacheRepo;
+
+    @Autowired
+    PageCompressionService pageCompressionService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private final UUID bookUuid = UUID.randomUUID();
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void seed() {
+        List<BookPageCache> pages = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            BookPageCache page = new BookPageCache();
+            page.setBookId(bookUuid);
+            page.setPageNumber(i);
+            page.setTitle(TITLE);
+            page.setContent(("<p>Page " + i + " of the book.</p>\n").repeat(50));
+            pages.add(page);
+        }
+        byte[] dictionary = pageCompressionService.createDictionary(bookUuid, pages);
+        for (BookPageCache page : pages)
+            pageCompressionService.compress(page, dictionary);
+        bookPageCacheRepo.insertBatch(pages);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void evictBook() {
+        bookPageCacheService.invalidateBook(bookUuid);
+    }
+
+    @Test
+    void servesARepeatedReadFromTheCache() {
+        long hits = stat("hits");
+        long misses = stat("misses");
+
+        long queries = statistics.getPrepareStatementCount();
+        BookPageCache first = bookPageCacheService.getPage(bookUuid, 1);
+        assertEquals(1, stat("misses") - misses);
+        assertTrue(statistics.getPrepareStatementCount() > queries);
+
+        queries = statistics.getPrepareStatementCount();
+        BookPageCache second = bookPageCacheService.getPage(bookUuid, 1);
+        assertEquals(1, stat("hits") - hits);
+        assertEquals(queries, statistics.getPrepareStatementCount());
+        assertEquals(first.getContent(), second.getContent());
+    }
+
+    @Test
+    void loadsOnlyTheMissingPagesOfARange() {
+        bookPageCacheService.getPage(bookUuid, 2);
+        long hits = stat("hits");
+        long misses = stat("misses");
+        long queries = statistics.getPrepareStatementCount();
+
+        List<BookPageCache> range = bookPageCacheService.getPages(bookUuid, 1, 4);
+
+        assertEquals(List.of(1, 2, 3, 4), range.stream().map(BookPageCache::getPageNumber).toList());
+        assertEquals(1, stat("hits") - hits);
+        assertEquals(3, stat("misses") - misses);
+        // Pages 1, 3 and 4 come from one range query
+        assertEquals(1, statistics.getPrepareStatementCount() - queries);
+    }
+
+    @Test
+    void weighsPagesByTheirTextAndCompressedContent() {
+        awaitEquals(0, bookPageCacheService::getSizeBytes);
+        BookPageCache page = bookPageCacheService.getPage(bookUuid, 5);
+        long weight = 2L * (page.getContent().length() + TITLE.length()) + page.getCompressedContent().length;
+
+        awaitEquals(weight, bookPageCacheService::getSizeBytes);
+
+        bookPageCacheService.invalidateBook(bookUuid);
+        awaitEquals(0, bookPageCacheService::getSizeBytes);
+    }
+
+    @Test
+    void evictsPagesBeyondTheConfiguredSize() {
+        for (int i = 1; i <= 40; i++)
+            bookPageCacheService.getPage(bookUuid, i);
+
+        awaitEquals(1, () -> bookPageCacheService.getSizeBytes() <= MAX_BYTES ? 1 : 0);
+        assertTrue(stat("evictions") > 0);
+        assertEquals(MAX_BYTES, stat("maxBytes"));
+    }
+
+    @Test
+    void doesNotCacheAMissingPage() {
+        assertNull(bookPageCacheService.getPage(bookUuid, 999));
+        assertFalse(bookPageCacheService.isCached(bookUuid, 999));
+    }
+
+    private long stat(String name) {
+        Map<String, Object> stats = bookPageCacheService.getStats();
+        return ((Number) stats.get(name)).longValue();
+    }
+
+    /**
+     * Waits for the cache's size bookkeeping, which Caffeine catches up with
+     * asynchronously after a write.
+     */
+    private static void awaitEquals(long expected, LongSupplier actual) {
+        for (int i = 0; i < 100 && actual.getAsLong() != expected; i++) {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        assertEquals(expected, actual.getAsLong());
+    }
+}
@@ -0,0 +1,49 @@
+package com.rem.reader.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpSession;
+
+import com.rem.reader.Models.Book;
+import com.rem.reader.Models.IngestionState;
+import com.rem.reader.Repo.BookRepo;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:./target/book-reader-service-test.db")
+class BookReaderServiceTests {
+
+    @Autowired
+    BookReaderService bookReaderService;
+
+    @Autowired
+    BookRepo bookRepo;
+
+    @Test
+    void openingABookLeftQueuedQueuesItAgain() throws InterruptedException {
+        // As left behind when the ingestion queue was full: queued, with nothing in flight
+        Book book = new Book();
+        book.setUuid(UUID.randomUUID());
+        book.setTitle("Stuck");
+        book.setFilePath("target/missing/book.epub");
+        book.setIngestionState(IngestionState.QUEUED);
+        bookRepo.save(book);
+
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("userUuid", UUID.randomUUID());
+        ResponseEntity<?> response = bookReaderService.getBookPages(book.getUuid(), 0, null, session);
+        assertEquals(202, response.getStatusCode().value());
+
+        // The file does not exist, so the new run ends in FAILED rather than staying queued
+        IngestionState state = IngestionState.QUEUED;
+        for (int i = 0; i < 100 && state != IngestionState.FAILED; i++) {
+            Thread.sleep(50);
+            state = bookRepo.findByUuid(book.getUuid()).getIngestionState();
+        }
+        assertEquals(IngestionState.FAILED, state);
+    }
+}
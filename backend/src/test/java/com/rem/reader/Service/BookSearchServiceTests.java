@@ -0,0 +1,167 @@
+package com.rem.reader.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.rem.reader.Models.Book;
+import com.rem.reader.Models.BookPageCache;
+import com.rem.reader.Models.IngestionState;
+import com.rem.reader.Repo.BookPageCacheRepo;
+import com.rem.reader.Repo.BookRepo;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:sqlite:./target/book-search-service-test.db")
+class BookSearchServiceTests {
+
+    @Autowired
+    BookSearchService bookSearchService;
+
+    @Autowired
+    BookRepo bookRepo;
+
+    @Autowired
+    BookPageCacheRepo bookPageCacheRepo;
+
+    @Autowired
+    PageCompressionService pageCompressionService;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private UUID dragonBook;
+    private UUID cookBook;
+
+    @BeforeEach
+    void seed() {
+        // Searches across books must only find the ones seeded here
+        jdbcTemplate.execute("DELETE FROM book_page_search");
+        bookPageCacheRepo.deleteAll();
+        bookRepo.deleteAll();
+
+        dragonBook = saveBook("Dragons",
+                "<p>The dragons circled the castle at dawn.</p>",
+                "<p>Not every knight was brave; AND some were not.</p>",
+                "<p>If a &lt; b then the dragon sleeps.</p>");
+        cookBook = saveBook("Cooking",
+                "<p>Fish &amp; chips at the café by the castle.</p>",
+                "<p>A recipe for dragonfruit.</p>");
+    }
+
+    @Test
+    void matchesTheLastWordAsAPrefixOnly() {
+        assertEquals(List.of(page(dragonBook, 0)), hits("castle drag", dragonBook));
+        assertEquals(List.of(), hits("drag castle", dragonBook));
+        assertEquals(List.of(page(dragonBook, 0), page(dragonBook, 2)), sorted(hits("drag", dragonBook)));
+    }
+
+    @Test
+    void requiresEveryWordOfTheQuery() {
+        assertEquals(List.of(page(cookBook, 0)), hits("chips castle", null));
+        assertEquals(List.of(), hits("chips dragons", null));
+    }
+
+    @Test
+    void searchesEveryBookUnlessOneIsGiven() {
+        List<String> all = hits("dragon", null);
+        assertTrue(all.contains(page(dragonBook, 2)));
+        assertTrue(all.contains(page(cookBook, 1)));
+        assertEquals(List.of(page(cookBook, 1)), hits("dragon", cookBook));
+    }
+
+    @Test
+    void takesOperatorsAndPunctuationLiterally() {
+        // Bare AND, NOT and OR are FTS5 operators, and would be syntax errors or change the query
+        assertEquals(List.of(page(dragonBook, 1)), hits("not AND knight", dragonBook));
+        assertEquals(List.of(), hits("knight OR dragons", dragonBook));
+        assertEquals(List.of(page(dragonBook, 1)), hits("\"knight\" brave;", dragonBook));
+
+        for (String query : List.of("NOT", "dragons*", "(castle", "castle)", "-castle", "^castle", "NEAR(castle dawn)",
+                "book:castle", "text : castle", "{book text}:castle", "castle\"", "+", "a < b"))
+            assertEquals(200, bookSearchService.search(query, null, null).getStatusCode().value(), query);
+    }
+
+    @Test
+    void rejectsQueriesWithoutWords() {
+        for (String query : new String[] { null, "", "   ", "\"", "\" \"\"" })
+            assertEquals(400, bookSearchService.search(query, null, null).getStatusCode().value());
+    }
+
+    @Test
+    void foldsDiacritics() {
+        assertEquals(List.of(page(cookBook, 0)), hits("cafe", cookBook));
+        assertEquals(List.of(page(cookBook, 0)), hits("CAFÉ", cookBook));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void escapesSnippetsAndMarksTheMatches() {
+        List<Map<String, Object>> results = (List<Map<String, Object>>) bookSearchService
+                .search("sleeps", dragonBook, null).getBody();
+
+        assertEquals("If a &lt; b then the dragon <mark>sleeps</mark>.", results.get(0).get("snippet"));
+    }
+
+    @Test
+    void returnsNotFoundForAnUnknownBook() {
+        assertEquals(404, bookSearchService.search("castle", UUID.randomUUID(), null).getStatusCode().value());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> hits(String query, UUID bookUuid) {
+        ResponseEntity<?> response = bookSearchService.search(query, bookUuid, null);
+        assertEquals(200, response.getStatusCode().value(), query);
+
+        List<String> pages = new ArrayList<>();
+        for (Map<String, Object> hit : (List<Map<String, Object>>) response.getBody())
+            pages.add(page((UUID) hit.get("bookUuid"), (Integer) hit.get("pageNumber")));
+        return pages;
+    }
+
+    private static List<String> sorted(List<String> pages) {
+        return pages.stream().sorted().toList();
+    }
+
+    private static String page(UUID bookUuid, int pageNumber) {
+        return bookUuid + "#" + pageNumber;
+    }
+
+    /**
+     * Stores a book and its pages as ingestion does, with their search text.
+     */
+    private UUID saveBook(String title, String... contents) {
+        Book book = new Book();
+        book.setUuid(UUID.randomUUID());
+        book.setTitle(title);
+        book.setPages(contents.length);
+        book.setFilePath("data/books/none.epub");
+        book.setIngestionState(IngestionState.DONE);
+        bookRepo.save(book);
+
+        List<BookPageCache> pages = new ArrayList<>();
+        for (int i = 0; i < contents.length; i++) {
+            BookPageCache page = new BookPageCache();
+            page.setBookId(book.getUuid());
+            page.setPageNumber(i);
+            page.setTitle(title);
+            page.setContent(contents[i]);
+            page.setSearchText(bookSearchService.toSearchText(contents[i]));
+            pages.add(page);
+        }
+        byte[] dictionary = pageCompressionService.createDictionary(book.getUuid(), pages);
+        for (BookPageCache page : pages)
+            pageCompressionService.compress(page, dictionary);
+        bookPageCacheRepo.insertBatch(pages);
+        return book.getUuid();
+    }
+}
@@ -0,0 +1,124 @@
+package com.rem.reader.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpSession;
+
+import com.rem.reader.Models.Book;
+import com.rem.reader.Models.IngestionState;
+import com.rem.reader.Models.Progress;
+import com.rem.reader.Repo.BookRepo;
+import com.rem.reader.Repo.ProgressRepo;
+
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:sqlite:./target/book-service-test.db",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class BookServiceTests {
+
+    @Autowired
+    BookService bookService;
+
+    @Autowired
+    BookRepo bookRepo;
+
+    @Autowired
+    ProgressRepo progressRepo;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private final UUID userUuid = UUID.randomUUID();
+
+    @BeforeEach
+    void seed() {
+        progressRepo.deleteAll();
+        bookRepo.deleteAll();
+
+        for (int i = 0; i < 20; i++) {
+            Book book = new Book();
+            book.setUuid(UUID.randomUUID());
+            book.setTitle("Book " + i);
+            book.setPages(100);
+            book.setFilePath("data/books/none.epub");
+            book.setIngestionState(IngestionState.DONE);
+            bookRepo.save(book);
+
+            if (i % 2 == 0) {
+                Progress progress = new Progress();
+                progress.setAccountUuid(userUuid);
+                progress.setBookUuid(book.getUuid());
+                progress.setCurrentPageNumber(i);
+                if (i % 4 == 0)
+                    progress.setLastRead(LocalDateTime.of(2024, 5, 1, 12, 0).plusMinutes(i % 3));
+                progressRepo.save(progress);
+            }
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getAllBooksRunsOneStatementRegardlessOfLibrarySize() {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("userUuid", userUuid);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ResponseEntity<?> response = bookService.getAllBooks(session);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        List<Map<String, Object>> books = (List<Map<String, Object>>) response.getBody();
+        assertEquals(20, books.size());
+        assertEquals(4, books.get(4).get("currentPage"));
+        assertEquals(0, books.get(5).get("currentPage"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void walksTheLibraryByLastReadThroughItsCursors() {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("userUuid", userUuid);
+
+        List<Object> walked = new ArrayList<>();
+        String cursor = null;
+        for (int i = 0; i < 20; i++) {
+            ResponseEntity<?> response = bookService.getLibraryPage("last_read", "desc", "all", cursor, 3, session);
+            assertEquals(200, response.getStatusCode().value());
+
+            Map<String, Object> page = (Map<String, Object>) response.getBody();
+            ((List<Map<String, Object>>) page.get("books")).forEach(book -> walked.add(book.get("uuid")));
+            cursor = (String) page.get("nextCursor");
+            if (cursor == null)
+                break;
+        }
+
+        assertNull(cursor);
+        assertEquals(20, walked.size());
+        assertEquals(20, new HashSet<>(walked).size());
+        // The books with a last read time come first, most recent first, ties broken by the later progress row
+        Map<Object, String> titles = new HashMap<>();
+        bookRepo.findAll().forEach(book -> titles.put(book.getUuid(), book.getTitle()));
+        assertEquals(List.of("Book 8", "Book 16", "Book 4", "Book 12", "Book 0"),
+                walked.subList(0, 5).stream().map(titles::get).toList());
+    }
+}
@@ -0,0 +1,73 @@
+package com.rem.reader.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class FileResponseServiceTests {
+
+    private final FileResponseService fileResponseService = new FileResponseService();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesTheWholeFileWithoutSendfile() throws IOException {
+        Path file = Files.writeString(dir.resolve("book.txt"), "0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book.txt");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertNull(fileResponseService.serveFile(file, request, response, CacheControl.noCache(), null));
+
+        assertEquals(200, response.getStatus());
+        assertEquals("10", response.getHeader(HttpHeaders.CONTENT_LENGTH));
+        assertEquals("0123456789", response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void writesTheRequestedRangeWithoutSendfile() throws IOException {
+        Path file = Files.writeString(dir.resolve("book.txt"), "0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/book.txt");
+        request.addHeader(HttpHeaders.RANGE, "bytes=2-5");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertNull(fileResponseService.serveFile(file, request, response, CacheControl.noCache(), null));
+
+        assertEquals(206, response.getStatus());
+        assertEquals("bytes 2-5/10", response.getHeader(HttpHeaders.CONTENT_RANGE));
+        assertEquals("2345", response.getContentAsString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void answersWithTheValidatorsItIsGiven() throws IOException {
+        Path file = Files.writeString(dir.resolve("cover.jpg"), "0123456789");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/cover.jpg");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileResponseService.serveFile(file, request, response, CacheControl.noCache(), null, "\"1a2b-a\"", 1_000_000L);
+
+        assertEquals(200, response.getStatus());
+        assertEquals("\"1a2b-a\"", response.getHeader(HttpHeaders.ETAG));
+
+        // A client holding the copy served from elsewhere revalidates against the same tag
+        request = new MockHttpServletRequest("GET", "/cover.jpg");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"1a2b-a\"");
+        response = new MockHttpServletResponse();
+        ResponseEntity<?> notModified = fileResponseService.serveFile(file, request, response, CacheControl.noCache(),
+                null, "\"1a2b-a\"", 1_000_000L);
+
+        assertEquals(304, notModified == null ? response.getStatus() : notModified.getStatusCode().value());
+    }
+}
@@ -0,0 +1,25 @@
+package com.rem.reader.Service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class PageResponseServiceTests {
+
+    private final PageResponseService pageResponseService = new PageResponseService();
+
+    @Test
+    void acceptsGzipUnlessItsQualityIsZero() {
+        assertTrue(pageResponseService.acceptsGzip("gzip, deflate, br"));
+        assertTrue(pageResponseService.acceptsGzip("br;q=1.0, GZIP;q=0.5"));
+        assertTrue(pageResponseService.acceptsGzip("*"));
+
+        assertFalse(pageResponseService.acceptsGzip(null));
+        assertFalse(pageResponseService.acceptsGzip("identity"));
+        assertFalse(pageResponseService.acceptsGzip("gzip;q=0"));
+        assertFalse(pageResponseService.acceptsGzip("br, gzip; q=0.000"));
+        assertFalse(pageResponseService.acceptsGzip("gzip;q=0, *"));
+        assertFalse(pageResponseService.acceptsGzip("*;q=0"));
+    }
+}
@@ -0,0 +1,103 @@
+package com.rem.reader.Service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpSession;
+
+import com.rem.reader.Models.Progress;
+import com.rem.reader.Repo.ProgressRepo;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:sqlite:./target/progress-service-test.db",
+        "reader.progress.flush-interval-millis=3600000",
+        "reader.progress.flush-threshold=4"
+})
+class ProgressServiceTests {
+
+    @Autowired
+    ProgressService progressService;
+
+    @Autowired
+    ProgressRepo progressRepo;
+
+    private final UUID userUuid = UUID.randomUUID();
+    private final UUID bookUuid = UUID.randomUUID();
+
+    @BeforeEach
+    void clear() {
+        progressService.flush();
+        progressRepo.deleteAll();
+    }
+
+    @Test
+    void readsABufferedPageTurnBeforeItIsFlushed() {
+        progressService.updateUserCurrentPage(userUuid, bookUuid, 12);
+
+        assertNull(progressRepo.findByAccountUuidAndBookUuid(userUuid, bookUuid));
+        assertEquals(12, progressService.getCurrentPage(userUuid, bookUuid, 0));
+        // Another reader of the same book does not see it
+        assertEquals(3, progressService.getCurrentPage(UUID.randomUUID(), bookUuid, 3));
+    }
+
+    @Test
+    void flushesOnlyTheLatestPageTurn() {
+        progressService.updateUserCurrentPage(userUuid, bookUuid, 3);
+        progressService.updateUserCurrentPage(userUuid, bookUuid, 5);
+        progressService.updateUserCurrentPage(userUuid, bookUuid, 7);
+
+        progressService.flush();
+
+        Progress stored = progressRepo.findByAccountUuidAndBookUuid(userUuid, bookUuid);
+        assertEquals(7, stored.getCurrentPageNumber());
+        assertNotNull(stored.getLastRead());
+        assertEquals(1, progressRepo.count());
+        // Nothing is buffered any more, so the stored page is what is read back
+        assertEquals(7, progressService.getCurrentPage(userUuid, bookUuid, stored.getCurrentPageNumber()));
+    }
+
+    @Test
+    void updatesTheStoredProgressOnTheNextFlush() {
+        progressService.updateUserCurrentPage(userUuid, bookUuid, 10);
+        progressService.flush();
+
+        progressService.updateUserCurrentPage(userUuid, bookUuid, 11);
+        assertEquals(11, progressService.getCurrentPage(userUuid, bookUuid, 10));
+        progressService.flush();
+
+        assertEquals(11, progressRepo.findByAccountUuidAndBookUuid(userUuid, bookUuid).getCurrentPageNumber());
+        assertEquals(1, progressRepo.count());
+    }
+
+    @Test
+    void flushesOnceTheBufferReachesItsThreshold() throws InterruptedException {
+        for (int i = 0; i < 4; i++)
+            progressService.updateUserCurrentPage(userUuid, UUID.randomUUID(), i + 1);
+
+        for (int i = 0; i < 100 && progressRepo.count() < 4; i++)
+            Thread.sleep(20);
+        assertEquals(4, progressRepo.count());
+    }
+
+    @Test
+    void removesABufferedPageTurn() {
+        progressService.updateUserCurrentPage(userUuid, bookUuid, 8);
+
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute("userUuid", userUuid);
+        ResponseEntity<?> response = progressService.removeUserProgress(bookUuid, session);
+        assertEquals(200, response.getStatusCode().value());
+
+        progressService.flush();
+        assertNull(progressRepo.findByAccountUuidAndBookUuid(userUuid, bookUuid));
+        assertEquals(0, progressService.getCurrentPage(userUuid, bookUuid, 0));
+    }
+}
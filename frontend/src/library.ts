@@ -99,71 +99,111 @@ function showContextMenu(x: number, y: number, uuid: string) {
     });
 }
 
+const PAGE_SIZE = 60;
+let nextCursor: string | null = null;
+let loadingPage = false;
+let libraryGeneration = 0;
+
+// The upload card sits after the last book; once it scrolls into view the next page is loaded
+const pageObserver = new IntersectionObserver((entries) => {
+    if (entries.some((entry) => entry.isIntersecting)) {
+        loadNextPage();
+    }
+}, { rootMargin: "600px" });
+
 async function fetchBooks() {
     const grid = document.getElementById("book-grid")!;
     grid.innerHTML = "";
+    pageObserver.disconnect();
 
-    const res = await fetch("http://localhost:8080/api/books/all", {
-        credentials: "include",
-    });
+    libraryGeneration++;
+    nextCursor = null;
+    loadingPage = false;
 
-    if (!res.ok) {
-        alert("Failed to load books");
-        return;
+    const uploadCard = createUploadCard(grid);
+    if (await loadNextPage(true)) {
+        pageObserver.observe(uploadCard);
     }
+}
 
-    const text = await res.text();
-    if (!text) {
-        createUploadCard(grid);
-        return;
-    }
+async function loadNextPage(first = false): Promise<boolean> {
+    if (loadingPage || (!first && !nextCursor)) return false;
+    loadingPage = true;
+    const generation = libraryGeneration;
 
-    let books;
-    try {
-        books = JSON.parse(text);
-    } catch (e) {
-        console.error("Invalid JSON:", text);
-        createUploadCard(grid);
-        return;
-    }
+    const params = new URLSearchParams({ limit: String(PAGE_SIZE) });
+    if (nextCursor) params.set("cursor", nextCursor);
 
-    for (const book of books) {
-        const card = document.createElement("div");
-
-        card.className = "book-card";
-        const progressText =
-            book.totalPages && book.currentPage > 0
-                ? `Progress: ${Math.round((book.currentPage / book.totalPages) * 100)}%`
-                : "Not started";
-
-        card.innerHTML = `
-                <img src="${book.coverImageUrl}" alt="${book.title}" />
-                <div class="info">
-                  <h3>${book.title}</h3>
-                  <p>${book.author || ""}</p>
-                  <div class="progress-bar">
-                    <span>${progressText}</span>
-                  </div>
-                </div>
-              `;
-
-
-        card.addEventListener("click", () => {
-            window.location.href = `/reader.html?uuid=${book.uuid}`;
-        });
-        card.addEventListener("contextmenu", (e) => {
-            e.preventDefault();
-            showContextMenu(e.pageX, e.pageY, book.uuid);
+    try {
+        const res = await fetch(`http://localhost:8080/api/books?${params}`, {
+            credentials: "include",
         });
 
-        grid.appendChild(card);
-        card.querySelector("h3")!.title = book.title;
+        if (!res.ok) {
+            alert("Failed to load books");
+            return false;
+        }
+
+        let page;
+        try {
+            page = await res.json();
+        } catch (e) {
+            console.error("Invalid JSON from library endpoint", e);
+            return false;
+        }
+
+        // The library was reloaded while this page was in flight
+        if (generation !== libraryGeneration) return false;
+
+        nextCursor = page.nextCursor;
+        const grid = document.getElementById("book-grid")!;
+        const uploadCard = grid.querySelector(".upload-card");
+        for (const book of page.books) {
+            grid.insertBefore(createBookCard(book), uploadCard);
+        }
+        return nextCursor !== null;
+    } finally {
+        if (generation === libraryGeneration) loadingPage = false;
     }
-    createUploadCard(grid);
+}
+
+function createBookCard(book: any): HTMLElement {
+    const card = document.createElement("div");
+
+    card.className = "book-card";
+    const progressText =
+        book.totalPages && book.currentPage > 0
+            ? `Progress: ${Math.round((book.currentPage / book.totalPages) * 100)}%`
+            : "Not started";
+
+    card.innerHTML = `
+            <img src="${book.coverImageUrl}?size=240"
+                 srcset="${book.coverImageUrl}?size=240 1x, ${book.coverImageUrl}?size=480 2x"
+                 loading="lazy" alt="${book.title}" />
+            <div class="info">
+              <h3>${book.title}</h3>
+              <p>${book.author || ""}</p>
+              <div class="progress-bar">
+                <span>${progressText}</span>
+              </div>
+            </div>
+          `;
+
+
+    card.addEventListener("click", () => {
+        window.location.href = `/reader.html?uuid=${book.uuid}`;
+    });
+    card.addEventListener("contextmenu", (e) => {
+        e.preventDefault();
+        showContextMenu(e.pageX, e.pageY, book.uuid);
+    });
+
+    card.querySelector("h3")!.title = book.title;
+    return card;
 }
 
 
-function createUploadCard(grid: HTMLElement) {
+function createUploadCard(grid: HTMLElement): HTMLElement {
     const card = document.createElement("div");
     card.className = "book-card upload-card";
     card.innerHTML = `
@@ -201,6 +241,7 @@ function createUploadCard(grid: HTMLElement) {
     });
 
     grid.appendChild(card);
+    return card;
 }
 
 fetchBooks();
@@ -164,6 +164,13 @@ async function loadPage() {
         credentials: "include",
     });
 
+    if (res.status === 202) {
+        contentEl.innerHTML = "<p>Preparing book...</p>";
+        contentEl.classList.add("show");
+        setTimeout(loadPage, 1000);
+        return;
+    }
+
     if (!res.ok) {
         contentEl.innerHTML = "<p>Error loading page.</p>";
         return;